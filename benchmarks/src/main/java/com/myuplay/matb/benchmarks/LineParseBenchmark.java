@@ -0,0 +1,91 @@
+package com.myuplay.matb.benchmarks;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.myuplay.matb.COMMEvent;
+import com.myuplay.matb.MATBEvent;
+import com.myuplay.matb.RMANEvent;
+import com.myuplay.matb.ReaderInterface;
+import com.myuplay.matb.SYSMEvent;
+import com.myuplay.matb.TRCKEvent;
+import com.myuplay.matb.WRSEvent;
+
+/**
+ * Time to parse a single line with each of the event classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineParseBenchmark {
+
+	private static final int lineCount = 1024;
+
+	@Param({ "MATB", "COMM", "SYSM", "TRCK", "RMAN", "WRS" })
+	public String module;
+
+	private String[] lines;
+
+	@Setup
+	public void setup() {
+
+		List<String> found = new LogGenerator(1, 60, 10).eventLines(module);
+
+		lines = new String[lineCount];
+
+		for (int i = 0; i < lineCount; ++i) {
+			lines[i] = found.get(i % found.size());
+		}
+
+	}
+
+	private ReaderInterface create() {
+
+		switch (module) {
+		case "MATB":
+			return new MATBEvent();
+		case "COMM":
+			return new COMMEvent();
+		case "SYSM":
+			return new SYSMEvent();
+		case "TRCK":
+			return new TRCKEvent();
+		case "RMAN":
+			return new RMANEvent();
+		default:
+			return new WRSEvent();
+		}
+
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(lineCount)
+	public void parse(Blackhole bh) throws ParseException {
+
+		for (String line : lines) {
+			ReaderInterface e = create();
+			bh.consume(e.parse(line));
+			bh.consume(e);
+		}
+
+	}
+
+}
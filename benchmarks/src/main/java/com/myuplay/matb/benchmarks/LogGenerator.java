@@ -0,0 +1,293 @@
+package com.myuplay.matb.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic MATBII output for all six file types.
+ *
+ * The lines follow the layout the parsers expect. The same seed always gives
+ * the same session.
+ */
+public class LogGenerator {
+
+	/**
+	 * File prefixes in the order the files of a trial are read.
+	 */
+	public static final String[] modules = { "COMM", "MATB", "RMAN", "SYSM",
+			"TRCK", "WRS" };
+
+	private static final String[] tasks = { "Resource Management",
+			"System Monitoring", "Communications", "Tracking", "Scheduling" };
+
+	private static final String[] compass = { "N", "NE", "E", "SE", "S", "SW",
+			"W", "NW" };
+
+	private static final int start = 9 * 3600000; // 09:00:00.0
+
+	private final Random r;
+	private final Map<String, List<String>> lines = new LinkedHashMap<String, List<String>>();
+
+	/**
+	 * @param seed
+	 *            - Seed for the random events.
+	 * @param minutes
+	 *            - Length of the session.
+	 * @param trackingRate
+	 *            - Tracking samples per second.
+	 */
+	public LogGenerator(long seed, int minutes, double trackingRate) {
+
+		r = new Random(seed);
+
+		for (String m : modules) {
+			List<String> l = new ArrayList<String>();
+			l.add("# " + m + " log file");
+			l.add("# Events Filename:  EVENTS_" + seed + ".xml");
+			l.add("");
+			lines.put(m, l);
+		}
+
+		int end = start + minutes * 60000;
+
+		events(end);
+		tracking(end, trackingRate);
+		workload(end);
+
+		// Tracking adds matb lines after the other events.
+		Collections.sort(lines.get("MATB").subList(3, lines.get("MATB").size()),
+				new Comparator<String>() {
+
+					@Override
+					public int compare(String a, String b) {
+						return a.substring(0, 10).compareTo(b.substring(0, 10));
+					}
+
+				});
+
+	}
+
+	/**
+	 * All lines of one file including the comment header.
+	 *
+	 * @param module
+	 *            - One of {@link #modules}.
+	 * @return
+	 */
+	public List<String> lines(String module) {
+		return lines.get(module);
+	}
+
+	/**
+	 * Only the lines that hold events.
+	 *
+	 * @param module
+	 *            - One of {@link #modules}.
+	 * @return
+	 */
+	public List<String> eventLines(String module) {
+
+		List<String> ret = new ArrayList<String>();
+
+		for (String s : lines.get(module)) {
+			if (!s.isEmpty() && s.charAt(0) != '#') {
+				ret.add(s);
+			}
+		}
+
+		return ret;
+
+	}
+
+	/**
+	 * Writes the six files of a trial into the directory.
+	 *
+	 * @param dir
+	 * @param stamp
+	 *            - Trial time stamp, for example 2014_06101230.
+	 * @return The files in the order they are read.
+	 * @throws IOException
+	 */
+	public File[] write(File dir, String stamp) throws IOException {
+
+		File[] files = new File[modules.length];
+
+		for (int i = 0; i < modules.length; ++i) {
+
+			files[i] = new File(dir, modules[i] + "_" + stamp + ".txt");
+
+			BufferedWriter out = new BufferedWriter(new FileWriter(files[i]));
+
+			try {
+				for (String s : lines.get(modules[i])) {
+					out.append(s).append("\r\n");
+				}
+			} finally {
+				out.close();
+			}
+
+		}
+
+		return files;
+
+	}
+
+	private static String format(String format, Object... args) {
+		return String.format(Locale.US, format, args);
+	}
+
+	private static String time(int ms) {
+		return format("%02d:%02d:%02d.%d", ms / 3600000,
+				ms / 60000 % 60, ms / 1000 % 60, ms % 1000 / 100);
+	}
+
+	private static String session(int ms) {
+		int s = (ms - start) / 1000;
+		return format("%02d:%02d", s / 60 % 60, s % 60);
+	}
+
+	private int tank() {
+		return r.nextInt(4000);
+	}
+
+	private void add(String module, String line) {
+		lines.get(module).add(line);
+	}
+
+	private void events(int end) {
+
+		add("MATB", time(start) + "    Device Initialization    - Init");
+
+		int number = 1;
+
+		for (int t = start; t < end;) {
+
+			t += 100 * (1 + r.nextInt(20));
+
+			String task = tasks[r.nextInt(tasks.length)];
+			String time = time(t);
+			double p = r.nextDouble();
+
+			if (p < 0.3) {
+
+				add("MATB", time + "    " + number + "    Event Processed    "
+						+ task + "    - Event " + number);
+				number++;
+
+				if (task.equals("Communications")) {
+					add("COMM", time + "    - Ship NASA" + r.nextInt(999)
+							+ " contacted");
+				}
+
+			} else if (p < 0.6) {
+
+				add("MATB", time + "    Subject Response    " + task
+						+ "    - Response");
+
+				if (task.equals("Communications")) {
+					add("COMM", time + "    "
+							+ format("%.1f", r.nextDouble() * 9)
+							+ "    OWN    NAV1    112.500    NAV1    112.500    TRUE    TRUE    - Own ship");
+				} else if (task.equals("System Monitoring")) {
+					add("SYSM", time + "    "
+							+ format("%.1f", r.nextDouble() * 5)
+							+ "    Light    Green    TRUE    - Ok");
+				} else if (task.equals("Resource Management")) {
+					add("RMAN", time + "    " + (1 + r.nextInt(8))
+							+ "    On    N    " + tank() + "    " + tank()
+							+ "    " + tank() + "    " + tank() + "    "
+							+ tank() + "    " + tank());
+				}
+
+			} else if (p < 0.7) {
+
+				add("MATB", time + "    Event Terminated    " + task
+						+ "    - Terminated");
+
+			} else {
+
+				add("MATB", time + "    Recording Interval Triggered    "
+						+ task);
+
+			}
+
+			if (p < 0.1) {
+				add("RMAN", time + "    N    " + tank() + "    " + tank()
+						+ "    " + tank() + "    " + tank() + "    " + tank()
+						+ "    " + tank());
+			} else if (p > 0.95) {
+				add("SYSM", time + "    -1    Scale    Scale3    FALSE    - Timeout");
+			}
+
+		}
+
+	}
+
+	private void tracking(int end, double rate) {
+
+		int step = (int) Math.max(1, Math.round(1000 / rate));
+
+		boolean idle = false;
+		double x = 0;
+		double y = 0;
+		int num = 0;
+
+		for (int t = start + step; t < end; t += step) {
+
+			num++;
+
+			if (r.nextDouble() < 0.05) {
+				idle = !idle;
+			}
+
+			double move = idle ? 3 : 40;
+			x += (r.nextDouble() * 2 - 1) * move;
+			y += (r.nextDouble() * 2 - 1) * move;
+
+			String c = idle ? "C" : compass[r.nextInt(compass.length)];
+
+			add("TRCK", time(t) + "    " + session(t) + "    " + num
+					+ "    " + format("%,d", r.nextInt(200000))
+					+ "    " + format("%.2f", r.nextDouble() * 100)
+					+ "    " + num * 2 + "    " + r.nextInt(999999) + "    "
+					+ format("%.2f", r.nextDouble() * 100) + "    "
+					+ num * 3 + "    " + r.nextInt(999999) + "    "
+					+ format("%.2f", r.nextDouble() * 100) + "    "
+					+ c + "    " + format("%.1f", x) + "    "
+					+ format("%.1f", y));
+
+			if (r.nextDouble() < 0.2) {
+				add("MATB", time(t) + "    Recording Interval Triggered    Tracking");
+			}
+
+		}
+
+	}
+
+	private void workload(int end) {
+
+		for (int t = start + 60000; t < end; t += 60000) {
+
+			int s = (t - start) / 1000;
+
+			add("WRS", time(t) + "    " + format("%02d:%02d.0", s / 60 % 60, s % 60)
+					+ "    " + r.nextInt(21) + "    " + r.nextInt(21) + "    "
+					+ r.nextInt(21) + "    " + r.nextInt(21) + "    "
+					+ r.nextInt(21) + "    " + r.nextInt(21) + "    "
+					+ format("%.2f", r.nextDouble() * 20) + "    - Rating");
+
+		}
+
+	}
+
+}
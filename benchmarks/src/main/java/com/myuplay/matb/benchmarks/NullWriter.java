@@ -0,0 +1,31 @@
+package com.myuplay.matb.benchmarks;
+
+import java.io.Writer;
+
+/**
+ * Drops everything written to it but counts the characters so the work can
+ * not be optimized away.
+ */
+public class NullWriter extends Writer {
+
+	public long count = 0;
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		count += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		count += len;
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
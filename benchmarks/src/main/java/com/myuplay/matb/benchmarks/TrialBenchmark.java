@@ -0,0 +1,162 @@
+package com.myuplay.matb.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.myuplay.matb.ECList;
+import com.myuplay.matb.Trial;
+import com.myuplay.matb.TrialCache;
+import com.myuplay.matb.TrialParser;
+
+/**
+ * Whole trial benchmarks on a generated session: loading from disk or the
+ * cache, building the stats list, generating stats and exporting the data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrialBenchmark {
+
+	private static final String stamp = "2014_06101230";
+
+	/**
+	 * Session length in minutes.
+	 */
+	@Param({ "10", "60" })
+	public int minutes;
+
+	/**
+	 * Tracking samples per second.
+	 */
+	@Param({ "2", "10" })
+	public double trackingRate;
+
+	private File dir;
+	private File[] files;
+
+	/**
+	 * Already loaded for the benchmarks that do not read files.
+	 */
+	private Trial trial;
+
+	@Setup
+	public void setup() throws Exception {
+
+		dir = File.createTempFile("matb", "bench");
+		dir.delete();
+		dir.mkdirs();
+
+		files = new LogGenerator(1, minutes, trackingRate).write(dir, stamp);
+
+		// Loading has to parse every time.
+		TrialCache.setEnabled(false);
+
+		trial = new Trial(1, stamp, files);
+
+		TrialParser parser = new TrialParser(trial);
+		parser.call();
+
+		TrialCache.save(trial, trial.id, parser.getDiagnostics());
+
+	}
+
+	@TearDown
+	public void tearDown() {
+
+		for (File f : files) {
+			f.delete();
+		}
+
+		File cache = TrialCache.getFile(trial);
+		cache.delete();
+		cache.getParentFile().delete();
+
+		dir.delete();
+
+	}
+
+	private Trial load() throws Exception {
+
+		Trial t = new Trial(1, stamp, files);
+		new TrialParser(t).call();
+		return t;
+
+	}
+
+	@Benchmark
+	public Trial loadTrial() throws Exception {
+		return load();
+	}
+
+	@Benchmark
+	public Trial loadCachedTrial() throws Exception {
+
+		Trial t = new Trial(1, stamp, files);
+		TrialCache.load(t);
+		return t;
+
+	}
+
+	@Benchmark
+	public ECList buildECList() {
+		return new ECList(trial.events);
+	}
+
+	/**
+	 * Only used by {@link TrialBenchmark#stats(Idle)}, so the other benchmarks
+	 * are not run again for each value.
+	 */
+	@State(Scope.Benchmark)
+	public static class Idle {
+
+		/**
+		 * Work out every idle before the stats or as they are needed.
+		 */
+		@Param({ "true", "false" })
+		public boolean precompute;
+
+	}
+
+	@Benchmark
+	public long stats(Idle idle) throws IOException {
+
+		NullWriter w = new NullWriter();
+		BufferedWriter out = new BufferedWriter(w);
+		trial.getStats(out, idle.precompute);
+		out.flush();
+
+		return w.count;
+
+	}
+
+	@Benchmark
+	public long exportData() throws IOException {
+
+		NullWriter w = new NullWriter();
+		BufferedWriter out = new BufferedWriter(w);
+		trial.toString(out);
+		out.flush();
+
+		return w.count;
+
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.myuplay.matb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line entry point for exporting without the GUI.
+ *
+ * Finds every trial under a directory the same way the GUI does, parses them
+ * and saves the data and/or stats. Trials are saved and released one at a
+ * time so any number of them fit in memory. Nothing in here touches JavaFX so
+ * it runs on headless machines.
+ *
+ * Trials that can not be read are left out of the files. Exits with 0 on
+ * success, 1 if anything failed and 2 for bad arguments.
+ */
+public class Batch {
+
+	public static final String usage = "Usage: java -cp MATBII-Display.jar com.myuplay.matb.Batch"
+			+ " <directory> <output> [data|stats|both]";
+
+	private static enum Mode {
+		data, stats, both
+	}
+
+	public static void main(String[] args) {
+
+		Console.setup();
+
+		System.exit(run(args));
+
+	}
+
+	/**
+	 * Runs a whole export.
+	 *
+	 * @param args
+	 *            - Directory to search, output file and the optional mode.
+	 *            When both are saved the output is used as a base name for
+	 *            the two files.
+	 * @return Exit status.
+	 */
+	public static int run(String[] args) {
+
+		if (args.length < 2 || args.length > 3) {
+			Console.error(usage);
+			return 2;
+		}
+
+		File directory = new File(args[0]);
+
+		if (!directory.isDirectory()) {
+			Console.error("Not a directory: " + directory);
+			return 2;
+		}
+
+		Mode mode = Mode.both;
+
+		if (args.length == 3) {
+			try {
+				mode = Mode.valueOf(args[2]);
+			} catch (IllegalArgumentException e) {
+				Console.error("Unknown mode: " + args[2]);
+				Console.error(usage);
+				return 2;
+			}
+		}
+
+		String output = args[1];
+
+		if (output.endsWith(".csv")) {
+			output = output.substring(0, output.length() - 4);
+		}
+
+		long[] metrics = Metrics.mark();
+
+		Console.log("Scanning for trials.");
+
+		List<Trial> trials = TrialScanner.scan(directory).getTrials(
+				new ArrayList<Trial>());
+
+		if (trials.isEmpty()) {
+			Console.error("No trials found in " + directory);
+			return 1;
+		}
+
+		Console.log("Scan complete. Exporting " + trials.size() + " trials.");
+
+		File data = null;
+		File stats = null;
+
+		if (mode == Mode.data) {
+			data = new File(output + ".csv");
+		} else if (mode == Mode.stats) {
+			stats = new File(output + ".csv");
+		} else {
+			data = new File(output + "_data.csv");
+			stats = new File(output + "_stats.csv");
+		}
+
+		int workers = Runtime.getRuntime().availableProcessors();
+		int failed;
+
+		try {
+
+			// Each trial is saved and dropped as soon as it is read.
+			failed = CSVWriter.export(data, stats, trials,
+					TrialParser.createExecutor(workers), workers * 2);
+
+		} catch (IOException e) {
+			Console.error("Failed to save: " + e.getMessage());
+			return 1;
+		} catch (InterruptedException e) {
+			Console.error("[Parser] Interrupted.");
+			return 1;
+		}
+
+		for (File f : new File[] { data, stats }) {
+			if (f != null) {
+				Console.log("[IO Thread] Printed data to " + f.getName());
+			}
+		}
+
+		Metrics.log(metrics);
+
+		return failed == 0 ? 0 : 1;
+
+	}
+
+}
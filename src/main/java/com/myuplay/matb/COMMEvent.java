@@ -1,8 +1,10 @@
 package com.myuplay.matb;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
-import org.joda.time.LocalTime;
 
 public class COMMEvent extends ReaderInterface {
 
@@ -30,30 +32,30 @@ public class COMMEvent extends ReaderInterface {
 	}
 
 	@Override
-	public LocalTime parse(String line) throws ParseException {
+	public int parse(String line) throws ParseException {
 
 		if (line.isEmpty() || line.charAt(0) == '#')
 			throw new ParseException("Invalid line: '" + line + "'", 0);
 
-		String[] parts = line.split(del);
+		Tokenizer parts = split(line);
 
-		time = readDate(parts[0]);
+		time = readMillis(parts, 0);
 
-		if (parts.length == 2) {// Only a comment and time.
-			remarks = parts[1].replaceAll(ccleaner, "");
-		} else if (parts.length > 2) {
+		if (parts.count() == 2) {// Only a comment and time.
+			remarks = parts.getClean(1);
+		} else if (parts.count() > 2) {
 
-			rt = Float.parseFloat(parts[1]);
-			ship = parts[2];
-			radiot = parts[3];
-			freqt = parts[4];
-			radios = parts[5];
-			freqs = parts[6];
-			rok = Boolean.parseBoolean(parts[7]);
-			fok = Boolean.parseBoolean(parts[8]);
+			rt = parts.getFloat(1);
+			ship = parts.get(2);
+			radiot = parts.get(3);
+			freqt = parts.get(4);
+			radios = parts.get(5);
+			freqs = parts.get(6);
+			rok = parts.getBoolean(7);
+			fok = parts.getBoolean(8);
 
-			if (parts.length >= 10) {
-				remarks = parts[9].replaceAll(ccleaner, "");
+			if (parts.count() >= 10) {
+				remarks = parts.getClean(9);
 			}
 
 		} else {
@@ -67,24 +69,57 @@ public class COMMEvent extends ReaderInterface {
 	}
 
 	@Override
-	public String toString() {
+	public StringBuilder appendTo(StringBuilder sb) {
 
 		if (Float.isNaN(rt)) {
-			return ",,,,,,,\"" + remarks + "\"";
+			return sb.append(",,,,,,,\"").append(remarks).append('"');
 		}
 
-		String ret;
 		if (isValid) {
-			ret = rt + "," + ship + "," + radiot + "," + freqt + "," + radios
-					+ "," + freqs + "," + rok + "," + fok + "," + interactions
-					+ ",\"" + remarks + "\"";
+			sb.append(rt).append(',').append(ship).append(',').append(radiot)
+					.append(',').append(freqt).append(',').append(radios)
+					.append(',').append(freqs).append(',').append(rok)
+					.append(',').append(fok).append(',').append(interactions)
+					.append(",\"").append(remarks).append('"');
 		} else {
-			ret = rt + ",,,,,,,,,\"" + remarks + "\""; // Short and sweet
-														// version.
+			// Short and sweet version.
+			sb.append(rt).append(",,,,,,,,,\"").append(remarks).append('"');
 		}
 
-		return ret;
+		return sb;
 
 	}
 
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(time);
+		out.writeFloat(rt);
+		TrialCache.writeString(out, ship);
+		TrialCache.writeString(out, radiot);
+		TrialCache.writeString(out, freqt);
+		TrialCache.writeString(out, radios);
+		TrialCache.writeString(out, freqs);
+		out.writeBoolean(rok);
+		out.writeBoolean(fok);
+		TrialCache.writeString(out, interactions);
+		TrialCache.writeString(out, remarks);
+		out.writeBoolean(isValid);
+	}
+
+	@Override
+	void read(ByteBuffer in) {
+		time = in.getInt();
+		rt = in.getFloat();
+		ship = TrialCache.readString(in);
+		radiot = TrialCache.readString(in);
+		freqt = TrialCache.readString(in);
+		radios = TrialCache.readString(in);
+		freqs = TrialCache.readString(in);
+		rok = in.get() != 0;
+		fok = in.get() != 0;
+		interactions = TrialCache.readString(in);
+		remarks = TrialCache.readString(in);
+		isValid = in.get() != 0;
+	}
+
 }
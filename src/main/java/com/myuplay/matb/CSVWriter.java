@@ -0,0 +1,346 @@
+package com.myuplay.matb;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Saves trials as csv files. Has no ties to JavaFX, see {@link DataWriter}
+ * and {@link StatsWriter} for saving from the GUI.
+ */
+public class CSVWriter {
+
+	/**
+	 * Formats trials at the same time. Shared by every save.
+	 */
+	private static final ExecutorService pool = TrialParser.createPool(
+			"CSV-Writer", Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Prints the rows of one trial.
+	 */
+	private static interface RowPrinter {
+		void print(Trial t, BufferedWriter out) throws IOException;
+	}
+
+	/**
+	 * Writes the data of every trial to the file.
+	 * 
+	 * @param file
+	 * @param trials
+	 * @throws IOException
+	 */
+	public static void writeData(File file, List<Trial> trials)
+			throws IOException {
+
+		write(file, Trial.getHeader(), trials, new RowPrinter() {
+
+			@Override
+			public void print(Trial t, BufferedWriter out) throws IOException {
+				t.toString(out);
+			}
+
+		});
+
+	}
+
+	/**
+	 * Writes the stats of every trial to the file.
+	 * 
+	 * @param file
+	 * @param trials
+	 * @throws IOException
+	 */
+	public static void writeStats(File file, List<Trial> trials)
+			throws IOException {
+
+		write(file, Trial.getStatsHeader(), trials, new RowPrinter() {
+
+			@Override
+			public void print(Trial t, BufferedWriter out) throws IOException {
+				t.getStats(out);
+			}
+
+		});
+
+	}
+
+	/**
+	 * Every trial is printed to its own temporary file on the pool. The files
+	 * are then copied after the header in the order of the list, so the
+	 * result is the same as printing the trials one after another.
+	 * 
+	 * The temporary files are made beside the file, where there is known to
+	 * be room for it, by each task just before it prints, and are deleted as
+	 * soon as they are copied. A task that is still running after a failure
+	 * deletes its own file when it stops.
+	 * 
+	 * @param file
+	 * @param header
+	 * @param trials
+	 * @param printer
+	 * @throws IOException
+	 */
+	private static void write(File file, String header, List<Trial> trials,
+			final RowPrinter printer) throws IOException {
+
+		long begin = Metrics.start();
+
+		final File folder = file.getAbsoluteFile().getParentFile();
+		final String prefix = file.getName() + ".";
+		final AtomicBoolean aborted = new AtomicBoolean(false);
+
+		// Filled in by the tasks as they start.
+		final AtomicReferenceArray<File> segments = new AtomicReferenceArray<File>(
+				trials.size());
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(trials.size());
+
+		try {
+
+			for (int i = 0; i < trials.size(); ++i) {
+
+				final Trial t = trials.get(i);
+				final int index = i;
+
+				futures.add(pool.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws IOException {
+
+						if (aborted.get()) {
+							return null;
+						}
+
+						File segment = File.createTempFile(prefix, ".part",
+								folder);
+						segments.set(index, segment);
+
+						try {
+
+							BufferedWriter out = new BufferedWriter(
+									new FileWriter(segment));
+
+							try {
+								printer.print(t, out);
+							} finally {
+								out.close();
+							}
+
+						} finally {
+							if (aborted.get()) {
+								segment.delete(); // Made after the save failed.
+							}
+						}
+
+						return null;
+
+					}
+
+				}));
+
+			}
+
+			BufferedWriter out = new BufferedWriter(new FileWriter(file));
+
+			try {
+				out.append(header + "\r\n"); // DOS formated.
+			} finally {
+				out.close();
+			}
+
+			FileChannel target = new FileOutputStream(file, true).getChannel();
+
+			try {
+
+				for (int i = 0; i < segments.length(); ++i) {
+
+					await(futures.get(i));
+
+					FileChannel in = new FileInputStream(segments.get(i))
+							.getChannel();
+
+					try {
+
+						long size = in.size();
+
+						for (long pos = 0; pos < size;) {
+							pos += in.transferTo(pos, size - pos, target);
+						}
+
+					} finally {
+						in.close();
+					}
+
+					segments.get(i).delete();
+
+				}
+
+			} finally {
+				target.close();
+			}
+
+			Metrics.record(Metrics.Phase.WritingFiles, begin, trials.size(),
+					file.length());
+
+		} finally {
+
+			aborted.set(true);
+
+			for (Future<Void> f : futures) {
+				f.cancel(true); // Only left over on failure.
+			}
+
+			for (int i = 0; i < segments.length(); ++i) {
+
+				File f = segments.get(i);
+
+				if (f != null) {
+					f.delete();
+				}
+
+			}
+
+		}
+
+	}
+
+	private static void await(Future<Void> f) throws IOException {
+
+		try {
+
+			f.get();
+
+		} catch (ExecutionException e) {
+
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+
+			throw new IOException(e.getCause());
+
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException("Interrupted while saving.");
+		}
+
+	}
+
+	/**
+	 * Reads, saves and releases the trials one after another so only a few
+	 * are ever held in memory. Trials are read ahead on the pool but always
+	 * saved in the order of the list.
+	 * 
+	 * A trial that can not be read is reported and left out of the files.
+	 * 
+	 * @param data
+	 *            - Where to save the data or null to skip it.
+	 * @param stats
+	 *            - Where to save the stats or null to skip them.
+	 * @param trials
+	 *            - Trials that have not been read yet.
+	 * @param pool
+	 *            - Reads the trials.
+	 * @param window
+	 *            - Most trials read but not yet saved at one time.
+	 * @return Number of trials that could not be read.
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public static int export(File data, File stats, List<Trial> trials,
+			ExecutorService pool, int window) throws IOException,
+			InterruptedException {
+
+		long begin = Metrics.start();
+
+		BufferedWriter dataOut = null;
+		BufferedWriter statsOut = null;
+
+		Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		int submitted = 0;
+		int failed = 0;
+
+		try {
+
+			if (data != null) {
+				dataOut = new BufferedWriter(new FileWriter(data));
+				dataOut.append(Trial.getHeader() + "\r\n"); // DOS formated.
+			}
+
+			if (stats != null) {
+				statsOut = new BufferedWriter(new FileWriter(stats));
+				statsOut.append(Trial.getStatsHeader() + "\r\n");
+			}
+
+			for (Trial t : trials) {
+
+				while (submitted < trials.size()
+						&& pending.size() < Math.max(1, window)) {
+					pending.add(pool.submit(new TrialParser(trials
+							.get(submitted++))));
+				}
+
+				try {
+
+					Console.log("[Parser] " + pending.remove().get());
+
+					if (dataOut != null) {
+						t.toString(dataOut);
+					}
+
+					if (statsOut != null) {
+						t.getStats(statsOut);
+					}
+
+				} catch (ExecutionException e) {
+
+					Console.error("[Parser] Failed to parse trial " + t.id
+							+ ": " + e.getCause());
+					failed++;
+
+				} finally {
+					t.release();
+				}
+
+			}
+
+		} finally {
+
+			for (Future<String> f : pending) {
+				f.cancel(true); // Only left over on failure.
+			}
+
+			try {
+				if (dataOut != null) {
+					dataOut.close();
+				}
+			} finally {
+				if (statsOut != null) {
+					statsOut.close();
+				}
+			}
+
+		}
+
+		Metrics.record(Metrics.Phase.WritingFiles, begin, trials.size() - failed,
+				(data != null ? data.length() : 0)
+						+ (stats != null ? stats.length() : 0));
+
+		return failed;
+
+	}
+
+}
@@ -1,7 +1,22 @@
 package com.myuplay.matb;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Program wide logging.
+ *
+ * Messages are queued without locking and handed to the outputs by a
+ * background thread, so logging never waits on an output. At most
+ * {@link #capacity} messages wait at a time. Anything logged while the queue
+ * is full is dropped and the number dropped is printed as soon as the
+ * dispatcher catches up.
+ */
 public class Console {
 
 	/**
@@ -12,12 +27,82 @@ public class Console {
 	}
 
 	public static String name = "MATBII-Display";
-	public static ArrayList<PrintInterface> outputs = new ArrayList<PrintInterface>();
+	private static final List<PrintInterface> outputs = new CopyOnWriteArrayList<PrintInterface>();
+
+	/**
+	 * Most messages waiting to be printed.
+	 */
+	public static final int capacity = 10000;
+
+	private static final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<String>();
+
+	/**
+	 * Messages queued and printed so far. Only the dispatcher writes printed.
+	 */
+	private static final AtomicLong queued = new AtomicLong();
+	private static volatile long printed = 0;
+
+	/**
+	 * Places taken in the queue. A place is taken before a message is added
+	 * and given back once it is printed, so the queue never holds more than
+	 * {@link #capacity}.
+	 */
+	private static final AtomicInteger waiting = new AtomicInteger();
+
+	private static final AtomicInteger dropped = new AtomicInteger();
+
+	/**
+	 * True while the dispatcher is parked or about to be.
+	 */
+	private static volatile boolean sleeping = false;
+
+	private static final Thread dispatcher = new Thread(new Runnable() {
+
+		@Override
+		public void run() {
+
+			while (true) {
+
+				dispatch();
+
+				sleeping = true;
+
+				if (queue.isEmpty() && dropped.get() == 0) {
+					LockSupport.park();
+				}
+
+				sleeping = false;
+
+			}
+
+		}
+
+	}, "Console");
+
+	static {
+
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				flush(1000);
+			}
+
+		}, "Console-Flush"));
+
+	}
 
 	public static void addOutput(PrintInterface i) {
 		outputs.add(i);
 	}
 
+	public static void removeOutput(PrintInterface i) {
+		outputs.remove(i);
+	}
+
 	public static void print(String message) {
 		printToAll("[" + name + "] " + message);
 	}
@@ -46,10 +131,102 @@ public class Console {
 		printToAll("[" + name + "][" + channel + "] " + message);
 	}
 
-	protected synchronized static void printToAll(String s) {
+	/**
+	 * Queues a message for every output. Returns right away.
+	 *
+	 * @param s
+	 */
+	protected static void printToAll(String s) {
+
+		if (waiting.incrementAndGet() > capacity) {
+			waiting.decrementAndGet();
+			dropped.incrementAndGet();
+		} else {
+			queue.add(s);
+			queued.incrementAndGet();
+		}
+
+		if (sleeping) {
+			LockSupport.unpark(dispatcher);
+		}
+
+	}
+
+	/**
+	 * Prints everything queued. Only run by the dispatcher.
+	 */
+	private static void dispatch() {
+
+		String s;
+
+		while ((s = queue.poll()) != null) {
+
+			printNow(s);
+			printed++; // Only this thread writes it.
+			waiting.decrementAndGet();
+
+			printDropped();
+
+		}
+
+		printDropped(); // Anything dropped after the last message.
+
+	}
+
+	private static void printDropped() {
+
+		int n = dropped.get();
+
+		if (n > 0) {
+			printNow("[" + name + "][log] " + n
+					+ " messages were dropped while the console was behind.");
+			dropped.addAndGet(-n); // Only once printed, for flush.
+		}
+
+	}
+
+	private static void printNow(String s) {
+
 		for (PrintInterface i : outputs) {
-			i.print(s);
+
+			try {
+				i.print(s);
+			} catch (RuntimeException e) {
+				// An output can not stop the others.
+				System.err.println("[" + name + "][ERROR] An output failed: "
+						+ e);
+			}
+
 		}
+
+	}
+
+	/**
+	 * Waits until everything logged before the call has been printed, along
+	 * with the number of messages dropped.
+	 *
+	 * @param millis
+	 *            - Longest time to wait.
+	 * @return False if it gave up waiting.
+	 */
+	public static boolean flush(long millis) {
+
+		long target = queued.get();
+		long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+		while (printed < target || dropped.get() > 0) {
+
+			if (System.nanoTime() >= end) {
+				return false;
+			}
+
+			LockSupport.unpark(dispatcher);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+
+		}
+
+		return true;
+
 	}
 
 	/**
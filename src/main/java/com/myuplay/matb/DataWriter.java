@@ -1,8 +1,6 @@
 package com.myuplay.matb;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.util.List;
 
 import javafx.concurrent.Task;
@@ -29,30 +27,23 @@ public class DataWriter extends Task<String> {
 	@Override
 	protected String call() throws Exception {
 
-		BufferedWriter out = null;
+		long[] metrics = Metrics.mark();
 
 		try {
 
-			out = new BufferedWriter(new FileWriter(file));
-
-			out.append(Trial.getHeader() + "\r\n"); // DOS formated.
-
-			for (Trial t : trials) {
-				t.toString(out);
-			}
+			CSVWriter.writeData(file, trials);
+			Metrics.log(metrics);
 
 		} catch (Exception e) {
 
 			failed();
 			setException(e);
 			updateMessage("Failed");
-			e.printStackTrace(System.err);
+			Console.error("Failed to save " + file.getName() + ": "
+					+ e.getMessage());
 			return "Failed to save file (" + file.getName() + "): "
 					+ e.getMessage();
 
-		} finally {
-			out.flush();
-			out.close();
 		}
 
 		return "Printed data to " + file.getName();
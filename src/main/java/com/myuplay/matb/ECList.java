@@ -1,9 +1,9 @@
 package com.myuplay.matb;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * A much fancier container for handling EventContainers and iterating through
@@ -19,333 +19,193 @@ import java.util.TreeMap;
  */
 public class ECList implements Iterable<EventContainer> {
 
+	private final List<EventContainer> list;
+
 	/**
-	 * This is an implementation that allows more random access to a list and
-	 * includes additional functions to access specificly {@link TRCKEvent}s.
-	 * 
-	 * @author Tyler
-	 * 
+	 * Recorded idles by list position. One of {@link #unknown},
+	 * {@link #notIdle} or {@link #idle}.
 	 */
-	public class SuperIterator extends PeekingIterator<EventContainer> {
-
-		private int index;
-		private int trackIndex;
-		private final List<Integer> trackList;
-
-		/**
-		 * Starts the iterator before the list. {@link SuperIterator#next()}
-		 * will get the first position.
-		 * 
-		 */
-		public SuperIterator() {
-			index = -1;
-			trackIndex = -1;
-
-			List<Integer> tmp = new ArrayList<Integer>();
-
-			for (int i = 0; i < list.size(); ++i) {
-				if (list.get(i).hasTRCK()) {
-					tmp.add(i);
-				}
-			}
-
-			trackList = tmp; // For debugging.
-
-		}
-
-		public SuperIterator(SuperIterator s) {
-			index = s.index;
-			trackIndex = s.trackIndex;
-			trackList = s.trackList; // No need for deep copy.
-		}
-
-		@Deprecated
-		public void add(EventContainer e) {
-		}
-
-		public SuperIterator clone() {
-			return new SuperIterator(this);
-		}
-
-		public SuperIterator cloneAt(int i) {
-			SuperIterator tmp = clone();
-
-			if (i > 0){
-				for (;i>0;--i){
-					tmp.next();
-				}
-			} else if (i < 0){
-				for (;i<0;++i){
-					tmp.previous();
-				}
-			}
+	private final byte[] idles;
 
-			return tmp;
-		}
-
-		public SuperIterator cloneAtTRCK(int i){
-
-			SuperIterator tmp = clone();
-
-			if (i > 0){
-				for (;i>0;--i){
-					tmp.nextTRCK();
-				}
-			} else if (i < 0) {
-				for (;i<0;++i){
-					tmp.previousTRCK();
-				}
-			}
-
-			return tmp;
-
-		}
+	private static final byte unknown = 0;
+	private static final byte notIdle = 1;
+	private static final byte idle = 2;
 
-		@Override
-		public boolean has(int i) {
-			int tmp = index + i;
-			return (tmp >= 0 && tmp < list.size());
-		}
-
-		@Override
-		public boolean hasNext() {
-			if (index + 1 >= list.size())
-				return false;
-			return true;
-		}
-
-		/**
-		 * Returns true if there is still a {@link TRCKEvent} remaining.
-		 * 
-		 * @return
-		 */
-		public boolean hasNextTRCK() {
-			if (trackIndex + 1 >= trackList.size())
-				return false;
-			return true;
-		}
-
-		@Override
-		public boolean hasPrevious() {
-			return (index - 1 >= 0);
-		}
+	private final TRCKStore trck; // Tracking samples of the trial.
 
-		public boolean hasPreviousTRCK() {
-			return (trackIndex - 1 >= 0);
-		}
+	/**
+	 * List position of every tracking event in order.
+	 */
+	private final int[] trackPositions;
 
-		public boolean hasTRCK(int i) {
-			int tmp = trackIndex + i;
-			return (tmp >= 0 && tmp < trackList.size());
-		}
+	/**
+	 * Number of tracking events before each list position. One longer than
+	 * the list. For a tracking event this is its index in
+	 * {@link #trackPositions}.
+	 */
+	private final int[] trackBefore;
 
-		public int index() {
-			return index;
-		}
+	/**
+	 * This creates a filtered list and generates all needed variables for
+	 * handling stats.
+	 * 
+	 * @param masterList
+	 */
+	public ECList(List<EventContainer> masterList) {
 
-		/**
-		 * Gets the value of the idle. If it is unknown it returns null.
-		 * 
-		 * @return {@link Boolean} - ({@code null}, {@code true}, {@code false})
-		 */
-		public Boolean isIdle() {
-			return idle.get(index);
-		}
+		List<EventContainer> tmp = new ArrayList<EventContainer>();
 
-		public boolean isNextTracking() {
-			if (hasNext()) {
-				return peek().hasTRCK();
-			} else {
-				return false;
-			}
-		}
+		for (EventContainer event : masterList) {
 
-		@Override
-		public EventContainer next() {
-			if (hasNext()) {
-				index++;
-				EventContainer e = list.get(index);
+			if (!event.hasMATB())
+				continue;
 
-				if (e.hasTRCK()) {
+			MATBEvent.Module module = event.matb.module;
 
-					trackIndex = trackList.indexOf(index); // Find the index of
-					// this index value.
+			// Every tracking event but only the responses of the other tasks.
+			if (module == MATBEvent.Module.Tracking
+					|| (module != MATBEvent.Module.Other && event.matb.eventType == MATBEvent.EventType.SubjectResponse)) {
 
-				}
+				tmp.add(event);
 
-				return e;
-			} else {
-				return null;
 			}
-		}
 
-		@Override
-		public int nextIndex() {
-			return index + 1;
 		}
 
-		/**
-		 * Will retrieve the next {@link TRCKEvent} and move the index to where
-		 * the next tracking event is.
-		 * 
-		 * Returns null otherwise.
-		 * 
-		 * @return TRCKEvent or null
-		 */
-		public TRCKEvent nextTRCK() {
-
-			if (hasNextTRCK()) {
-
-				trackIndex++;
-
-				index = trackList.get(trackIndex);
+		list = tmp; // For debugging.
+		idles = new byte[list.size()];
 
-				return list.get(index).trck;
+		TRCKStore store = null;
 
-			} else {
-				return null;
+		// Every tracking row of a trial is in the same store.
+		for (EventContainer event : masterList) {
+			if (event.hasTRCK()) {
+				store = event.trck;
+				break;
 			}
-
-		}
-
-		public int nextTRCKIndex() {
-			return trackList.get(trackIndex + 1);
-		}
-
-		@Override
-		public EventContainer peek() {
-			return list.get(index + 1);
 		}
 
-		@Override
-		public EventContainer peek(int i) {
-			return list.get(index + i);
-		}
-
-		public EventContainer peekPrevious() {
-			return peek(-1);
-		}
-
-		public TRCKEvent peekPreviousTRCK() {
-			return peekTRCK(-1);
-		}
+		trck = store;
 
-		public TRCKEvent peekTRCK() {
-			if (hasNextTRCK()) {
-				return list.get(trackList.get(trackIndex + 1)).trck;
-			} else {
-				return null;
-			}
-		}
+		trackBefore = new int[list.size() + 1];
 
-		public TRCKEvent peekTRCK(int i) {
+		int count = 0;
 
-			if (hasTRCK(i)) {
-				return list.get(trackList.get(trackIndex + i)).trck;
-			} else {
-				return null;
+		for (int i = 0; i < list.size(); ++i) {
+			trackBefore[i] = count;
+			if (list.get(i).hasTRCK()) {
+				count++;
 			}
-
 		}
 
-		@Override
-		public EventContainer previous() {
-			if (hasPrevious()) {
-				index--;
-				EventContainer e = list.get(index);
+		trackBefore[list.size()] = count;
+		trackPositions = new int[count];
 
-				if (e.hasTRCK()) {
-					trackIndex = trackList.indexOf(index);
-				}
-
-				return e;
-
-			} else {
-				return null;
+		for (int i = 0; i < list.size(); ++i) {
+			if (list.get(i).hasTRCK()) {
+				trackPositions[trackBefore[i]] = i;
 			}
 		}
 
-		@Override
-		public int previousIndex() {
-			return index - 1;
-		}
-
-		public TRCKEvent previousTRCK() {
-			if (hasPreviousTRCK()) {
-				trackIndex--;
-
-				index = trackList.get(trackIndex);
-
-				return list.get(index).trck;
-
-			} else {
-				return null;
-			}
-		}
+	}
 
-		public int previousTRCKIndex() {
-			return trackList.get(trackIndex - 1);
-		}
+	/**
+	 * Gets the recorded idle of a list position.
+	 * 
+	 * @param position
+	 * @return {@link Boolean} - ({@code null}, {@code true}, {@code false})
+	 */
+	public Boolean isIdle(int position) {
 
-		/**
-		 * Disabled and will do nothing.
-		 */
-		@Deprecated
-		public void remove() {
+		if (position < 0 || position >= idles.length) {
+			return null;
 		}
 
-		@Deprecated
-		public void set(EventContainer e) {
+		switch (idles[position]) {
+		case idle:
+			return Boolean.TRUE;
+		case notIdle:
+			return Boolean.FALSE;
+		default:
+			return null;
 		}
 
-		public void setIdle(boolean val) {
-			idle.put(index, new Boolean(val));
-		}
+	}
 
-		public int TRCKIndex() {
-			return trackList.get(trackIndex);
+	public void setIdle(int position, boolean val) {
+		if (position >= 0 && position < idles.length) {
+			idles[position] = val ? idle : notIdle;
 		}
-
 	}
 
-	private final List<EventContainer> list;
-
-	private final Map<Integer, Boolean> idle; // List of recorded idles.
-
 	/**
-	 * This creates a filtered list and generates all needed variables for
-	 * handling stats.
+	 * Number of tracking events in the list.
 	 * 
-	 * @param masterList
+	 * @return
 	 */
-	public ECList(List<EventContainer> masterList) {
-
-		List<EventContainer> tmp = new ArrayList<EventContainer>();
-
-		for (EventContainer event : masterList) {
-
-			if (!event.hasMATB())
-				continue;
+	public int getTRCKCount() {
+		return trackPositions.length;
+	}
 
-			if (event.matb.event
-					.matches("(Resource Management|System Monitoring|Communications|Tracking)")
-					&& (event.matb.eventType == MATBEvent.EventType.SubjectResponse || (event.matb.event
-							.equals("Tracking")))) {
+	/**
+	 * List position of a tracking event.
+	 * 
+	 * @param i
+	 *            - Which tracking event, starting at 0.
+	 * @return
+	 */
+	public int getTRCKPosition(int i) {
+		return trackPositions[i];
+	}
 
-				tmp.add(event);
+	/**
+	 * Row in {@link #getTRCK()} of a tracking event.
+	 * 
+	 * @param i
+	 *            - Which tracking event, starting at 0.
+	 * @return
+	 */
+	public int getTRCKRow(int i) {
+		return list.get(trackPositions[i]).trckRow;
+	}
 
-			}
+	/**
+	 * Number of events in the list.
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return list.size();
+	}
 
-		}
+	public EventContainer get(int position) {
+		return list.get(position);
+	}
 
-		list = tmp; // For debugging.
-		idle = new TreeMap<Integer, Boolean>();
+	/**
+	 * Number of tracking events before a list position. For a tracking event
+	 * this is which tracking event it is.
+	 * 
+	 * @param position
+	 * @return
+	 */
+	public int countTRCKBefore(int position) {
+		return trackBefore[position];
+	}
 
+	/**
+	 * Holds the tracking samples the rows of the iterator point to. Null if
+	 * the trial has no tracking.
+	 * 
+	 * @return
+	 */
+	public TRCKStore getTRCK() {
+		return trck;
 	}
 
 	@Override
-	public SuperIterator iterator() {
-		return new SuperIterator();
+	public Iterator<EventContainer> iterator() {
+		return Collections.unmodifiableList(list).iterator();
 	}
 
 }
@@ -1,18 +1,24 @@
 package com.myuplay.matb;
 
-import org.joda.time.LocalTime;
-
 public class EventContainer implements Comparable<EventContainer> {
 
-	public LocalTime time;
+	/**
+	 * Milliseconds of the day.
+	 */
+	public int time;
 	public MATBEvent matb;
 	public COMMEvent comm;
 	public RMANEvent rman;
 	public SYSMEvent sysm;
-	public TRCKEvent trck;
+	/**
+	 * Tracking samples of the trial. The sample of this container is at
+	 * {@link #trckRow}.
+	 */
+	public TRCKStore trck;
+	public int trckRow = -1;
 	public WRSEvent wrs;
 
-	public EventContainer(LocalTime time) {
+	public EventContainer(int time) {
 		this.time = time;
 	}
 
@@ -22,6 +28,16 @@ public class EventContainer implements Comparable<EventContainer> {
 				+ TRCKEvent.header + ',' + WRSEvent.header;
 	}
 
+	/*
+	 * Empty fields of each module.
+	 */
+	private static final String emptyMATB = emptyCSVGen(MATBEvent.hcount);
+	private static final String emptyCOMM = emptyCSVGen(COMMEvent.hcount);
+	private static final String emptyRMAN = emptyCSVGen(RMANEvent.hcount);
+	private static final String emptySYSM = emptyCSVGen(SYSMEvent.hcount);
+	private static final String emptyTRCK = emptyCSVGen(TRCKEvent.hcount);
+	private static final String emptyWRS = emptyCSVGen(WRSEvent.hcount);
+
 	/**
 	 * Prints out formated csv of all events with extended specifications.
 	 * 
@@ -29,68 +45,84 @@ public class EventContainer implements Comparable<EventContainer> {
 	 */
 	@Override
 	public String toString() {
+		return appendTo(new StringBuilder(256)).toString();
+	}
+
+	/**
+	 * Writes the same csv as {@link #toString()} onto the end of sb.
+	 * 
+	 * @param sb
+	 * @return sb
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
 
-		String ret = "\"" + ReaderInterface.printDate(time) + "\"";
+		ReaderInterface.appendDate(sb.append('"'), time).append('"');
 
+		sb.append(',');
 		if (matb != null) {
-			ret += ',' + matb.toString();
+			matb.appendTo(sb);
 		} else {
-			ret += ',' + emptyCSVGen(MATBEvent.hcount);
+			sb.append(emptyMATB);
 		}
 
+		sb.append(',');
 		if (comm != null) {
-			ret += ',' + comm.toString();
+			comm.appendTo(sb);
 		} else {
-			ret += ',' + emptyCSVGen(COMMEvent.hcount);
+			sb.append(emptyCOMM);
 		}
 
+		sb.append(',');
 		if (rman != null) {
-			ret += ',' + rman.toString();
+			rman.appendTo(sb);
 		} else {
-			ret += ',' + emptyCSVGen(RMANEvent.hcount);
+			sb.append(emptyRMAN);
 		}
 
+		sb.append(',');
 		if (sysm != null) {
-			ret += ',' + sysm.toString();
+			sysm.appendTo(sb);
 		} else {
-			ret += ',' + emptyCSVGen(SYSMEvent.hcount);
+			sb.append(emptySYSM);
 		}
 
+		sb.append(',');
 		if (trck != null) {
-			ret += ',' + trck.toString();
+			trck.appendTo(sb, trckRow);
 		} else {
-			ret += ',' + emptyCSVGen(TRCKEvent.hcount);
+			sb.append(emptyTRCK);
 		}
 
+		sb.append(',');
 		if (wrs != null) {
-			ret += ',' + wrs.toString();
+			wrs.appendTo(sb);
 		} else {
-			ret += ',' + emptyCSVGen(WRSEvent.hcount);
+			sb.append(emptyWRS);
 		}
 
-		return ret;
+		return sb;
 
 	}
 
 	private static String emptyCSVGen(int count) {
 
-		String ret = "";
+		StringBuilder ret = new StringBuilder();
 
 		for (int i = 1; i < count; ++i) {
-			ret += ",";
+			ret.append(',');
 		}
 
-		return ret;
+		return ret.toString();
 
 	}
 
 	@Override
 	public int compareTo(EventContainer e) {
-		return time.compareTo(e.time);
+		return Integer.compare(time, e.time);
 	}
 
-	public boolean equals(LocalTime d) {
-		return d.equals(time);
+	public boolean equals(int d) {
+		return d == time;
 	}
 
 	public boolean equals(EventContainer e) {
@@ -99,7 +131,7 @@ public class EventContainer implements Comparable<EventContainer> {
 	
 	public boolean equals(TRCKEvent e){
 		if (hasTRCK()){
-			return e.equals(trck);
+			return e.equals(trck.get(trckRow));
 		} else {
 			return false;
 		}
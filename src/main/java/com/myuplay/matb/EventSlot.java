@@ -0,0 +1,116 @@
+package com.myuplay.matb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the {@link EventContainer}s that share one time while a trial is
+ * being merged.
+ * 
+ * Events are matched against the containers in the order they were created
+ * so the result is the same as reading every file one after another.
+ */
+public class EventSlot {
+
+	private final List<EventContainer> containers = new ArrayList<EventContainer>();
+
+	private int time;
+
+	/**
+	 * Everything before this position already has a matb event. Matb events
+	 * are never removed so this only moves forward.
+	 */
+	private int freeMATB = 0;
+
+	/**
+	 * Empties the slot and moves it to a new time.
+	 * 
+	 * @param time
+	 */
+	public void reset(int time) {
+		this.time = time;
+		containers.clear();
+		freeMATB = 0;
+	}
+
+	/**
+	 * Adds every container in the slot to the list in the order they were
+	 * created.
+	 * 
+	 * @param events
+	 */
+	public void drainTo(List<EventContainer> events) {
+		events.addAll(containers);
+		containers.clear();
+		freeMATB = 0;
+	}
+
+	private EventContainer create() {
+
+		EventContainer ret = new EventContainer(time);
+		containers.add(ret);
+
+		return ret;
+
+	}
+
+	/**
+	 * Specialized for matb event entry. Returns the first container without a
+	 * matb event or a new one.
+	 * 
+	 * @return
+	 */
+	public EventContainer getMATB() {
+
+		while (freeMATB < containers.size()) {
+
+			EventContainer e = containers.get(freeMATB);
+
+			if (e.matb == null) {
+				return e;
+			}
+
+			freeMATB++;
+
+		}
+
+		return create();
+
+	}
+
+	/**
+	 * Returns the first container or a new one.
+	 * 
+	 * @return
+	 */
+	public EventContainer get() {
+
+		if (!containers.isEmpty()) {
+			return containers.get(0);
+		}
+
+		return create();
+
+	}
+
+	/**
+	 * Returns the first container that has a matb event for the given module
+	 * or a new one.
+	 * 
+	 * @param module
+	 *            - Module of the matb event.
+	 * @return
+	 */
+	public EventContainer get(MATBEvent.Module module) {
+
+		for (EventContainer e : containers) {
+			if (e.matb != null && e.matb.module == module) {
+				return e;
+			}
+		}
+
+		return create();
+
+	}
+
+}
@@ -1,65 +1,121 @@
 package com.myuplay.matb;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Pattern;
-
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.application.Platform;
 import javafx.concurrent.Task;
-import javafx.scene.Node;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.SelectionMode;
+import javafx.scene.control.TreeCell;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
-import javafx.scene.text.Text;
-
-public class FileReader extends TreeView<Node> {
+import javafx.util.Callback;
 
-	private ArrayList<Task<String>> tasks = new ArrayList<Task<String>>();
+public class FileReader extends TreeView<Object> {
 
 	/**
-	 * Statically compiled file matcher for file filtering.
+	 * A trial the scan found and the folder it is in.
 	 */
-	private static final Pattern p = Pattern
-			.compile("(COMM|MATB|RMAN|SYSM|TRCK|WRS)_[0-9]{4}_[0-9]{8}\\.(txt)");
+	private static class Found {
+
+		private final TrialScanner.Folder folder;
+		private final TrialView view;
+
+		private Found(TrialScanner.Folder folder, TrialView view) {
+			this.folder = folder;
+			this.view = view;
+		}
+
+	}
+
+	private final Queue<Task<String>> tasks = new ConcurrentLinkedQueue<Task<String>>();
 
 	/**
-	 * Matches all files specific to MATBII
+	 * Trials the scan found that are not on the tree yet.
 	 */
-	private static final FileFilter ff = new FileFilter() {
+	private final Queue<Found> found = new ConcurrentLinkedQueue<Found>();
 
-		@Override
-		public boolean accept(File f) {
+	/**
+	 * Set while an update of the tree is waiting for the FX thread.
+	 */
+	private final AtomicBoolean publishing = new AtomicBoolean();
 
-			if (f.isFile()) {
+	/*
+	 * Tree items of everything on the tree. Only used on the FX thread.
+	 */
+	private final Map<TrialScanner.Folder, TreeItem<Object>> folderItems = new HashMap<TrialScanner.Folder, TreeItem<Object>>();
+	private final Map<Trial, TreeItem<Object>> trialItems = new HashMap<Trial, TreeItem<Object>>();
 
-				return p.matcher(f.getName()).matches();
+	private final String name;
+	private final TreeItem<Object> root;
+	private boolean scanning = true;
 
-			}
+	private final ExecutorService executor;
+	private boolean cancelled = false;
 
-			return false;
-		}
+	/**
+	 * The scan and every trial that has not finished parsing.
+	 */
+	private final AtomicInteger remaining = new AtomicInteger(1);
 
-	};
+	/**
+	 * Timings when parsing started, taken again whenever parsing starts after
+	 * everything had finished.
+	 */
+	private volatile long[] metrics = Metrics.mark();
 
 	/**
-	 * Scans directories for files and then reads in the data.
+	 * Scans directories for files and reads in the data using one parser per
+	 * core.
 	 * 
 	 * @param directory
 	 *            - Where to do the search.
-	 * @param rootWindow
-	 *            - Needed for the trials and saving files.
 	 */
 	public FileReader(File directory) {
+		this(directory, TrialParser.createExecutor(Runtime.getRuntime()
+				.availableProcessors()));
+	}
+
+	/**
+	 * Scans directories for files and reads in the data. The scan runs in the
+	 * background and each trial is parsed and shown as soon as it is found.
+	 * 
+	 * @param directory
+	 *            - Where to do the search.
+	 * @param executor
+	 *            - Runs the trial parsing tasks.
+	 */
+	public FileReader(final File directory, ExecutorService executor) {
 		super();
 
+		this.executor = executor;
+
 		// Selection mode
 		getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
+		// Rows are drawn by shared cells instead of a node per trial.
+		setCellFactory(new Callback<TreeView<Object>, TreeCell<Object>>() {
+
+			@Override
+			public TreeCell<Object> call(TreeView<Object> tree) {
+				return new TrialCell();
+			}
+
+		});
+
 		// Context Menu
 		ContextMenu menu = new ContextMenu();
 		MenuItem saveDataButton = new MenuItem("Save Data");
@@ -68,131 +124,300 @@ public class FileReader extends TreeView<Node> {
 		MenuItem saveStatsButton = new MenuItem("Save Stats");
 		saveStatsButton.setOnAction(new SaveStatsEventHandle(this));
 
-		menu.getItems().addAll(saveDataButton, saveStatsButton);
+		MenuItem cancelButton = new MenuItem("Cancel Parsing");
+		cancelButton.setOnAction(new EventHandler<ActionEvent>() {
+
+			@Override
+			public void handle(ActionEvent e) {
+				cancelAll();
+			}
+
+		});
+
+		menu.getItems().addAll(saveDataButton, saveStatsButton, cancelButton);
 
 		setContextMenu(menu);
 
 		// Take care of io.
 
-		Console.log("Scanning for trials.");
-
-		getFiles(directory);
+		name = directory.getName();
+		root = new TreeItem<Object>(name + " - Scanning");
+		root.setExpanded(true);
+		setRoot(root);
 
-		Console.log("Scan complete. Parsing files.");
+		Console.log("Scanning for trials.");
 
-		Thread executer = new Thread(new Runnable() {
+		Thread scanner = new Thread(new Runnable() {
 
 			@Override
 			public void run() {
+				scan(directory);
+			}
 
-				for (Task<String> t : tasks) {
+		}, "Trial-Scanner");
 
-					t.run();
+		scanner.setDaemon(true);
+		scanner.start();
+
+		Console.log("Scanning and parsing in separate threads. App thread ready.");
+
+	}
+
+	/**
+	 * Runs on the scanning thread.
+	 * 
+	 * @param directory
+	 */
+	private void scan(File directory) {
+
+		TrialScanner.Folder result = null;
+
+		try {
+
+			result = TrialScanner.scan(directory, new TrialScanner.Listener() {
+
+				@Override
+				public void found(TrialScanner.Folder folder, Trial t) {
+
+					TrialView v = new TrialView(t);
+					Task<String> task = v.setupTask();
+
+					synchronized (FileReader.this) {
+						if (cancelled) {
+							task.cancel();
+						} else {
+							parse(task);
+						}
+					}
+
+					found.add(new Found(folder, v));
+					publish();
 
 				}
 
-				Console.log("Parsing complete. Ready.");
+			});
 
-			}
+			Console.log("Scan complete.");
 
-		});
+		} catch (RuntimeException e) {
+
+			Console.error("Scan failed: " + e.getMessage());
+
+		} finally {
+
+			final TrialScanner.Folder done = result;
+
+			Platform.runLater(new Runnable() {
+
+				@Override
+				public void run() {
 
-		Console.log("Parsing in separate thread. App thread ready.");
+					update();
+					scanning = false;
 
-		executer.start();
+					if (done != null) {
+						arrange(done, root);
+					}
+
+					root.setValue(name);
+
+				}
+
+			});
+
+			finished(); // The scan.
+
+		}
 
 	}
 
-	public void getFiles(File folder) {
+	/**
+	 * Puts the trials found so far on the tree. Trials found while an update
+	 * is already waiting are added with it so the FX thread only gets one
+	 * update at a time however fast they come.
+	 */
+	private void publish() {
+
+		if (publishing.compareAndSet(false, true)) {
 
-		Text t = new Text(folder.getName());
-		TreeItem<Node> root = new TreeItem<Node>(t);
-		setRoot(root);
-		getFiles(folder, root);
+			Platform.runLater(new Runnable() {
+
+				@Override
+				public void run() {
+					update();
+				}
+
+			});
+
+		}
 
 	}
 
-	private boolean getFiles(File folder, TreeItem<Node> node) {
+	/**
+	 * Adds the waiting trials on the FX thread, all trials of a folder at
+	 * once.
+	 */
+	private void update() {
 
-		File[] list = folder.listFiles(ff);
+		publishing.set(false);
 
-		if (list.length > 0) {
+		Map<TreeItem<Object>, List<TreeItem<Object>>> added = new LinkedHashMap<TreeItem<Object>, List<TreeItem<Object>>>();
 
-			Arrays.sort(list);
+		Found f;
 
-			// This is a trial directory.
-			ArrayList<String> stamps = new ArrayList<String>();
+		while ((f = found.poll()) != null) {
 
-			// Collect individual stamps.
-			for (File f : list) {
-				String stamp = f.getName();
-				stamp = stamp.substring(stamp.indexOf('_') + 1,
-						stamp.indexOf('.'));
-				if (!stamps.contains(stamp)) {
-					stamps.add(stamp);
-				}
-			}
+			TreeItem<Object> parent = getItem(f.folder);
+			TreeItem<Object> item = new TreeItem<Object>(f.view);
 
-			for (int i = 0; i < stamps.size(); ++i) {
-				try {
-					node.getChildren()
-							.add(getTrial(list, stamps.get(i), i + 1));
-				} catch (ParseException e) {
-					Console.error("Could not read in trial with timestamp "
-							+ stamps.get(i));
-				}
+			trialItems.put(f.view.trial, item);
+
+			List<TreeItem<Object>> list = added.get(parent);
+
+			if (list == null) {
+				list = new ArrayList<TreeItem<Object>>();
+				added.put(parent, list);
 			}
 
-			return true;
-		} else {
-			// Keep looking
+			list.add(item);
 
-			for (File f : folder.listFiles()) {
+		}
 
-				if (f.isDirectory()) {
-					Text t = new Text(f.getName());
-					TreeItem<Node> n = new TreeItem<Node>(t);
-					if (getFiles(f, n)) {
-						node.getChildren().add(n);
-					}
-				}
+		for (Map.Entry<TreeItem<Object>, List<TreeItem<Object>>> e : added
+				.entrySet()) {
+			e.getKey().getChildren().addAll(e.getValue());
+		}
+
+		if (scanning) {
+			root.setValue(name + " - Scanning, " + trialItems.size()
+					+ " trials found");
+		}
+
+	}
+
+	/**
+	 * The item of a folder. Made along with any missing parents the first
+	 * time a trial is found in it.
+	 * 
+	 * @param folder
+	 * @return
+	 */
+	private TreeItem<Object> getItem(TrialScanner.Folder folder) {
 
+		if (folder.parent == null) {
+			return root;
+		}
+
+		TreeItem<Object> item = folderItems.get(folder);
+
+		if (item == null) {
+			item = new TreeItem<Object>(folder.name);
+			folderItems.put(folder, item);
+			getItem(folder.parent).getChildren().add(item);
+		}
+
+		return item;
+
+	}
+
+	/**
+	 * Puts everything in the order of the finished scan. Items were added in
+	 * the order they were found.
+	 * 
+	 * @param folder
+	 * @param item
+	 */
+	private void arrange(TrialScanner.Folder folder, TreeItem<Object> item) {
+
+		List<TreeItem<Object>> children = new ArrayList<TreeItem<Object>>();
+
+		for (TrialScanner.Folder f : folder.folders) {
+
+			TreeItem<Object> n = folderItems.get(f);
+
+			if (n != null) {
+				arrange(f, n);
+				children.add(n);
 			}
 
-			if (node.getChildren().size() > 0)
-				return true;
+		}
+
+		for (Trial t : folder.trials) {
+
+			TreeItem<Object> n = trialItems.get(t);
+
+			if (n != null) {
+				children.add(n);
+			}
 
 		}
 
-		return false;
+		if (!item.getChildren().equals(children)) {
+			item.getChildren().setAll(children);
+		}
 
 	}
 
-	private TreeItem<Node> getTrial(File[] files, String timeStamp, int id)
-			throws ParseException {
+	/**
+	 * Runs a parsing task on the executor.
+	 * 
+	 * @param t
+	 */
+	private void parse(final Task<String> t) {
 
-		ArrayList<File> valid = new ArrayList<File>(6);
+		tasks.add(t);
 
-		// Make a list of files that have the correct stamp.
-		for (File f : files) {
-			if (f.getName().contains(timeStamp))
-				valid.add(f);
+		if (remaining.incrementAndGet() == 1) {
+			metrics = Metrics.mark();
 		}
 
-		File[] list = new File[valid.size()];
-		valid.toArray(list);
+		executor.execute(new Runnable() {
 
-		Trial t = new Trial(id, timeStamp, list);
+			@Override
+			public void run() {
 
-		tasks.add(t.setupTask());
+				try {
+					t.run();
+				} finally {
+					finished();
+				}
+
+			}
+
+		});
+
+	}
+
+	private void finished() {
+		if (remaining.decrementAndGet() == 0) {
+			Console.log("Parsing complete. Ready.");
+			Metrics.log(metrics);
+		}
+	}
+
+	/**
+	 * Cancels every trial that has not finished parsing. Trials that are in
+	 * the middle of parsing will stop as soon as possible.
+	 */
+	public synchronized void cancelAll() {
+
+		cancelled = true; // Trials the scan has not found yet.
 
-		TreeItem<Node> ti = new TreeItem<Node>(t);
+		int count = 0;
 
-		return ti;
+		for (Task<String> t : tasks) {
+			if (t.cancel()) {
+				count++;
+			}
+		}
+
+		if (count > 0) {
+			Console.log("Cancelled parsing of " + count + " trials.");
+		}
 
 	}
 
-	public List<Trial> getSelected(TreeItem<Node> node) {
+	public List<Trial> getSelected(TreeItem<Object> node) {
 
 		ArrayList<Trial> list = new ArrayList<Trial>();
 
@@ -200,15 +425,15 @@ public class FileReader extends TreeView<Node> {
 
 	}
 
-	public List<Trial> getSelected(TreeItem<Node> node, List<Trial> list) {
+	public List<Trial> getSelected(TreeItem<Object> node, List<Trial> list) {
 
-		if (node.isLeaf() && node.getValue() instanceof Trial) {
+		if (node.isLeaf() && node.getValue() instanceof TrialView) {
 
-			list.add((Trial) node.getValue());
+			list.add(((TrialView) node.getValue()).trial);
 
 		} else {
 
-			for (TreeItem<Node> n : node.getChildren()) {
+			for (TreeItem<Object> n : node.getChildren()) {
 
 				getSelected(n, list);
 
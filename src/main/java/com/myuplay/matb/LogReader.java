@@ -0,0 +1,287 @@
+package com.myuplay.matb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a MATBII log straight from the bytes of the file.
+ *
+ * Lines are found and trimmed without decoding them and blank lines are
+ * skipped. A line is only turned into a string when {@link #line()} asks for
+ * it, so comments never are unless they are needed.
+ *
+ * Every file is read with the same charset. It is the platform charset, as
+ * it always has been, unless {@code -Dmatb.charset} or
+ * {@link #setCharset(Charset)} says otherwise. A platform charset that can not
+ * be used for logs is replaced by ISO-8859-1. Using anything but the platform
+ * charset is logged once.
+ */
+public class LogReader implements Closeable {
+
+	private static volatile Charset charset = readCharset(System
+			.getProperty("matb.charset"));
+
+	/**
+	 * Charset the logs are read with.
+	 *
+	 * @return
+	 */
+	public static Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Changes the charset for every file read afterwards.
+	 *
+	 * @param c
+	 *            - Has to write plain ASCII as single bytes the same as
+	 *            ASCII since the lines are found byte by byte.
+	 * @throws IllegalArgumentException
+	 *             If the charset does not keep ASCII as it is.
+	 */
+	public static void setCharset(Charset c) {
+
+		if (!isUsable(c)) {
+			throw new IllegalArgumentException(c
+					+ " can not be used for MATBII logs.");
+		}
+
+		charset = c;
+
+	}
+
+	/**
+	 * @param c
+	 * @return True if the charset keeps plain ASCII as single bytes.
+	 */
+	private static boolean isUsable(Charset c) {
+
+		byte[] ascii = new byte[0x7f - '\t'];
+
+		for (int i = 0; i < ascii.length; ++i) {
+			ascii[i] = (byte) ('\t' + i);
+		}
+
+		return c.canEncode()
+				&& Arrays.equals(ascii, new String(ascii, c).getBytes(c));
+
+	}
+
+	/**
+	 * @param name
+	 *            - Charset asked for or null for the platform charset.
+	 */
+	private static Charset readCharset(String name) {
+
+		Charset platform = Charset.defaultCharset();
+		Charset c;
+
+		if (name == null) {
+
+			c = isUsable(platform) ? platform : Charset.forName("ISO-8859-1");
+
+		} else {
+
+			try {
+
+				c = Charset.forName(name);
+
+				if (!isUsable(c)) {
+					throw new IllegalArgumentException();
+				}
+
+			} catch (IllegalArgumentException e) {
+
+				Console.error("Can not read logs as " + name
+						+ ", using the platform charset instead.");
+				return readCharset(null);
+
+			}
+
+		}
+
+		if (!c.equals(platform)) {
+			Console.log("Reading logs as " + c.name()
+					+ " instead of the platform charset " + platform.name()
+					+ ".");
+		}
+
+		return c;
+
+	}
+
+	private final FileChannel channel;
+	private final Charset cs = charset;
+
+	private byte[] buffer = new byte[1 << 16];
+
+	/**
+	 * Where the next line starts and where the read bytes end.
+	 */
+	private int pos = 0;
+	private int limit = 0;
+	private boolean eof = false;
+
+	/**
+	 * The current line without the whitespace around it.
+	 */
+	private int start = 0;
+	private int end = 0;
+
+	/**
+	 * Line number of the current line, counting blank lines.
+	 */
+	private int number = 0;
+	private boolean afterCR = false;
+
+	public LogReader(File f) throws IOException {
+		channel = new FileInputStream(f).getChannel();
+	}
+
+	/**
+	 * Moves to the next line that is not blank. Lines end at \n, \r or \r\n
+	 * the same as {@link java.io.BufferedReader#readLine()} and are trimmed
+	 * the same as {@link String#trim()}.
+	 *
+	 * @return False at the end of the file.
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException {
+
+		while (true) {
+
+			int e = pos;
+
+			while (e < limit && buffer[e] != '\n' && buffer[e] != '\r') {
+				e++;
+			}
+
+			if (e == limit && !eof) {
+				fill();
+				continue;
+			}
+
+			if (pos == limit) {
+				return false;
+			}
+
+			// The blank line a \r\n leaves behind is not a line of its own.
+			if (!(afterCR && e == pos && e < limit && buffer[e] == '\n')) {
+				number++;
+			}
+
+			afterCR = e < limit && buffer[e] == '\r';
+
+			int s = pos;
+			pos = e < limit ? e + 1 : e; // A \r\n leaves a blank line behind.
+
+			while (s < e && (buffer[s] & 0xff) <= ' ') {
+				s++;
+			}
+
+			while (e > s && (buffer[e - 1] & 0xff) <= ' ') {
+				e--;
+			}
+
+			if (s < e) {
+				start = s;
+				end = e;
+				return true;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Keeps the unfinished line and reads more after it.
+	 */
+	private void fill() throws IOException {
+
+		if (pos > 0) {
+			System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+
+		if (limit == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+
+		int n = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length
+				- limit));
+
+		if (n < 0) {
+			eof = true;
+		} else {
+			limit += n;
+		}
+
+	}
+
+	/**
+	 * Line number of the current line, starting at 1.
+	 *
+	 * @return
+	 */
+	public int lineNumber() {
+		return number;
+	}
+
+	/**
+	 * @return True if the current line starts with #.
+	 */
+	public boolean isComment() {
+		return buffer[start] == '#';
+	}
+
+	/**
+	 * Same as {@code line().contains(s)} without building the line.
+	 *
+	 * @param s
+	 *            - Plain ASCII.
+	 * @return
+	 */
+	public boolean contains(String s) {
+
+		int last = end - s.length();
+
+		for (int i = start; i <= last; ++i) {
+
+			int j = 0;
+
+			while (j < s.length() && buffer[i + j] == s.charAt(j)) {
+				j++;
+			}
+
+			if (j == s.length()) {
+				return true;
+			}
+
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * The current line. A new string every time.
+	 *
+	 * @return
+	 */
+	public String line() {
+		return new String(buffer, start, end - start, cs);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -1,8 +1,10 @@
 package com.myuplay.matb;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
-import org.joda.time.LocalTime;
 
 public class MATBEvent extends ReaderInterface {
 
@@ -19,6 +21,56 @@ public class MATBEvent extends ReaderInterface {
 		}
 	}
 
+	/**
+	 * The task an event belongs to, read from its event name. Anything that
+	 * is not one of the tasks is {@link #Other}.
+	 */
+	public static enum Module {
+		Communications("Communications"), ResourceManagement(
+				"Resource Management"), SystemMonitoring("System Monitoring"), Tracking(
+				"Tracking"), Other(null);
+
+		public final String event;
+
+		Module(String event) {
+			this.event = event;
+		}
+
+		private static final Module[] modules = values();
+
+		/**
+		 * @param event
+		 * @return The module with the event name or {@link #Other}.
+		 */
+		public static Module of(String event) {
+
+			for (Module m : modules) {
+				if (m.event != null && m.event.equals(event)) {
+					return m;
+				}
+			}
+
+			return Other;
+
+		}
+
+		/**
+		 * Same as {@link #of(String)} on a field of a line.
+		 */
+		static Module of(Tokenizer parts, int i) {
+
+			for (Module m : modules) {
+				if (m.event != null && parts.equals(i, m.event)) {
+					return m;
+				}
+			}
+
+			return Other;
+
+		}
+
+	}
+
 	/**
 	 * Default csv header fields.
 	 */
@@ -29,6 +81,12 @@ public class MATBEvent extends ReaderInterface {
 	public int eventNumber = -1;
 	public EventType eventType;
 	public String event = "";
+
+	/**
+	 * Module of {@link #event}.
+	 */
+	public Module module = Module.Other;
+
 	public String comment = "";
 
 	/**
@@ -50,54 +108,54 @@ public class MATBEvent extends ReaderInterface {
 	}
 
 	@Override
-	public LocalTime parse(String line) throws ParseException {
+	public int parse(String line) throws ParseException {
 
 		if (line.isEmpty() || line.charAt(0) == '#')
 			throw new ParseException("Invalid line: '" + line + "'", 0);
 
-		String[] parts = line.split(del);
+		Tokenizer parts = split(line);
 
-		time = readDate(parts[0]);
+		time = readMillis(parts, 0);
 
 		try {
 
 			// Has an event number.
-			if (parts[1].matches("[0-9]+")) {
+			if (parts.isInteger(1, false)) {
 
-				eventNumber = Integer.parseInt(parts[1]);
+				eventNumber = parts.getInt(1);
 
-				if (parts[2].contains("Event Processed")) {
+				if (parts.contains(2, "Event Processed")) {
 					eventType = EventType.EventProcessed;
-					event = parts[3];
-					if (4 < parts.length)
-						comment = parts[4].replaceAll(ccleaner, "");
+					readEvent(parts, 3);
+					if (4 < parts.count())
+						comment = parts.getClean(4);
 				}
 
 			} else {// Doesn't have an event number.
 
-				if (parts[1].contains("Device Initialization")) {
+				if (parts.contains(1, "Device Initialization")) {
 					eventType = EventType.DeviceInit;
-					if (2 < parts.length)
-						comment = parts[2].replaceAll(ccleaner, "");
-				} else if (parts[1].contains("Recording Interval")) {
+					if (2 < parts.count())
+						comment = parts.getClean(2);
+				} else if (parts.contains(1, "Recording Interval")) {
 					eventType = EventType.RecordingInterval;
-					event = parts[2];
-				} else if (parts[1].contains("Subject Response")) {
+					readEvent(parts, 2);
+				} else if (parts.contains(1, "Subject Response")) {
 					eventType = EventType.SubjectResponse;
-					event = parts[2];
-					if (3 < parts.length)
-						comment = parts[3].replaceAll(ccleaner, "");
-				} else if (parts[1].contains("Event Terminated")) {
+					readEvent(parts, 2);
+					if (3 < parts.count())
+						comment = parts.getClean(3);
+				} else if (parts.contains(1, "Event Terminated")) {
 					eventType = EventType.EventTerminated;
-					event = parts[2];
-					if (3 < parts.length)
-						comment = parts[3].replaceAll(ccleaner, "");
-				} else if (parts[2].contains("Information")) { // Hacky fix for
+					readEvent(parts, 2);
+					if (3 < parts.count())
+						comment = parts.getClean(3);
+				} else if (parts.contains(2, "Information")) { // Hacky fix for
 					// a dash. :(
 					eventType = EventType.Information;
-					event = parts[3];
-					if (3 < parts.length)
-						comment = parts[4].replaceAll(ccleaner, "");
+					readEvent(parts, 3);
+					if (3 < parts.count())
+						comment = parts.getClean(4);
 				}
 
 			}
@@ -110,18 +168,33 @@ public class MATBEvent extends ReaderInterface {
 
 	}
 
+	/**
+	 * Reads the event name and its module. The module names are shared
+	 * instead of copied.
+	 */
+	private void readEvent(Tokenizer parts, int i) {
+
+		module = Module.of(parts, i);
+		event = module != Module.Other ? module.event : parts.get(i);
+
+	}
+
 	@Override
-	public String toString() {
+	public StringBuilder appendTo(StringBuilder sb) {
+
+		sb.append('"');
 
-		String ret = "\"" + ((eventNumber != -1) ? eventNumber : "") + "\"";
+		if (eventNumber != -1) {
+			sb.append(eventNumber);
+		}
 
-		ret += ",\"" + eventType.type + "\"";
+		sb.append("\",\"").append(eventType.type);
 
-		ret += ",\"" + event + "\"";
+		sb.append("\",\"").append(event);
 
-		ret += ",\"" + comment + "\"";
+		sb.append("\",\"").append(comment).append('"');
 
-		return ret;
+		return sb;
 
 	}
 
@@ -136,4 +209,28 @@ public class MATBEvent extends ReaderInterface {
 
 	}
 
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(time);
+		out.writeInt(eventNumber);
+		out.writeByte(eventType != null ? eventType.ordinal() : -1);
+		TrialCache.writeString(out, event);
+		TrialCache.writeString(out, comment);
+	}
+
+	@Override
+	void read(ByteBuffer in) {
+		time = in.getInt();
+		eventNumber = in.getInt();
+		byte type = in.get();
+		eventType = type >= 0 ? EventType.values()[type] : null;
+		event = TrialCache.readString(in);
+		module = Module.of(event);
+		comment = TrialCache.readString(in);
+
+		if (module != Module.Other) {
+			event = module.event;
+		}
+	}
+
 }
@@ -2,6 +2,9 @@ package com.myuplay.matb;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -28,6 +31,7 @@ public class Main extends Application {
 	private static Stage consoleWindow;
 	private static final TextArea console = new TextArea();
 	private static BorderPane list;
+	private static FileReader fileReader;
 
 	public static void main(String[] args) {
 
@@ -127,9 +131,13 @@ public class Main extends Application {
 		if (file == null)
 			return;
 
-		FileReader fr = new FileReader(file);
+		if (fileReader != null) {
+			fileReader.cancelAll(); // Stop parsing the old directory.
+		}
+
+		fileReader = new FileReader(file);
 
-		setList(fr);
+		setList(fileReader);
 
 	}
 
@@ -169,22 +177,34 @@ public class Main extends Application {
 	}
 
 	/**
-	 * Thread safe implementation of the println for its console.
+	 * Most lines the console keeps. The oldest lines are removed past this.
 	 */
-	private static void println(final String s) {
+	private static final int consoleLines = 5000;
 
-		// If already on the application thread then print immediately.
-		if (Platform.isFxApplicationThread()) {
-			console.appendText(s + "\r\n");
-		} else {
+	/**
+	 * Lengths of the lines in the console, oldest first. Only used on the
+	 * application thread.
+	 */
+	private static final ArrayDeque<Integer> lineLengths = new ArrayDeque<Integer>();
+
+	private static final ConcurrentLinkedQueue<String> pendingLines = new ConcurrentLinkedQueue<String>();
+	private static final AtomicBoolean printing = new AtomicBoolean();
+
+	/**
+	 * Thread safe implementation of the println for its console. Lines are
+	 * collected and added to the console together once per frame.
+	 */
+	private static void println(String s) {
+
+		pendingLines.add(s);
+
+		if (printing.compareAndSet(false, true)) {
 
-			// Otherwise we need to queue the task to run on the application
-			// thread.
 			Platform.runLater(new Runnable() {
 
 				@Override
 				public void run() {
-					println(s);
+					printPending();
 				}
 
 			});
@@ -193,6 +213,53 @@ public class Main extends Application {
 
 	}
 
+	/**
+	 * Adds every waiting line to the console and trims it to
+	 * {@link #consoleLines}.
+	 */
+	private static void printPending() {
+
+		printing.set(false); // Lines added from here on need another pass.
+
+		StringBuilder text = new StringBuilder();
+		String s;
+
+		while ((s = pendingLines.poll()) != null) {
+
+			int start = text.length();
+
+			// The text area drops control characters itself, which would
+			// throw off the lengths.
+			for (int i = 0; i < s.length(); ++i) {
+				char c = s.charAt(i);
+				if ((c >= ' ' && c != 0x7f) || c == '\t' || c == '\n') {
+					text.append(c);
+				}
+			}
+
+			text.append('\n');
+			lineLengths.add(text.length() - start);
+
+		}
+
+		int removed = 0;
+
+		while (lineLengths.size() > consoleLines) {
+			removed += lineLengths.poll();
+		}
+
+		if (removed >= console.getLength()) {
+			// Only new lines are kept. Skip adding what would be removed.
+			console.setText(text.substring(removed - console.getLength()));
+		} else {
+			console.appendText(text.toString());
+			if (removed > 0) {
+				console.deleteText(0, removed);
+			}
+		}
+
+	}
+
 	private static void openConsole() {
 
 		console.setPrefHeight(300);
@@ -0,0 +1,221 @@
+package com.myuplay.matb;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in each step of reading and saving trials, with how much was
+ * done in it.
+ *
+ * Times are added up over every thread, so steps that run on many threads at
+ * once can add up to more than the time that passed. Rates are per thread.
+ *
+ * Totals only ever grow. Parsing a directory and every save take a
+ * {@link #mark()} when they start and log what was done after it when they
+ * end, so one run is never mixed up with the ones before it. Anything running
+ * at the same time, like trials parsed during a save, is counted in both.
+ * Starting with {@code -Dmatb.metrics=<file>} also writes them to the file as
+ * csv every time, so runs can be compared.
+ */
+public class Metrics {
+
+	public static enum Phase {
+		Scanning("Scanning", "trials"), ReadingFiles("Reading files", "lines"), Sorting(
+				"Sorting", "events"), LoadingCache("Loading cache", "events"), Merging(
+				"Merging", "events"), FixingCOMM("Fixing COMM events", "events"), SavingCache(
+				"Saving cache", "events"), BuildingECList("Building stats list",
+				"events"), Stats("Generating stats", "rows"), WritingData(
+				"Writing data", "rows"), WritingFiles("Writing files", "trials");
+
+		public final String title;
+
+		/**
+		 * What the item count of the phase counts.
+		 */
+		public final String unit;
+
+		Phase(String title, String unit) {
+			this.title = title;
+			this.unit = unit;
+		}
+	}
+
+	private static final Phase[] phases = Phase.values();
+
+	private static final int runs = 0;
+	private static final int nanos = 1;
+	private static final int items = 2;
+	private static final int bytes = 3;
+	private static final int fields = 4;
+
+	/**
+	 * Runs, nanoseconds, items and bytes of each phase by its ordinal.
+	 */
+	private static final AtomicLongArray totals = new AtomicLongArray(
+			phases.length * fields);
+
+	private static final String file = System.getProperty("matb.metrics");
+
+	/**
+	 * @return The start time to pass to
+	 *         {@link #record(Phase, long, long, long)}.
+	 */
+	public static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Adds one run of a phase.
+	 *
+	 * @param p
+	 * @param start
+	 *            - From {@link #start()}.
+	 * @param count
+	 *            - Number of {@link Phase#unit} done.
+	 * @param size
+	 *            - Bytes read or written or 0.
+	 */
+	public static void record(Phase p, long start, long count, long size) {
+
+		int i = p.ordinal() * fields;
+
+		totals.incrementAndGet(i + runs);
+		totals.addAndGet(i + nanos, System.nanoTime() - start);
+		totals.addAndGet(i + items, count);
+		totals.addAndGet(i + bytes, size);
+
+	}
+
+	/**
+	 * The totals so far, to report only what is done after now.
+	 *
+	 * @return
+	 */
+	public static long[] mark() {
+
+		long[] mark = new long[totals.length()];
+
+		for (int i = 0; i < mark.length; ++i) {
+			mark[i] = totals.get(i);
+		}
+
+		return mark;
+
+	}
+
+	/**
+	 * A field of a phase added up since the mark.
+	 */
+	private static long since(long[] mark, Phase p, int field) {
+		int i = p.ordinal() * fields + field;
+		return totals.get(i) - mark[i];
+	}
+
+	private static double perSecond(long count, long time) {
+		return time > 0 ? count * 1e9 / time : 0;
+	}
+
+	/**
+	 * Readable totals of every phase that ran since the mark.
+	 *
+	 * @param mark
+	 *            - From {@link #mark()}.
+	 * @return
+	 */
+	public static String report(long[] mark) {
+
+		StringBuilder sb = new StringBuilder("Timings (added up over threads):");
+
+		for (Phase p : phases) {
+
+			long r = since(mark, p, runs);
+
+			if (r == 0) {
+				continue;
+			}
+
+			long t = since(mark, p, nanos);
+			long n = since(mark, p, items);
+			long b = since(mark, p, bytes);
+
+			sb.append("\n\t").append(p.title).append(": ").append(r)
+					.append(r == 1 ? " run, " : " runs, ")
+					.append(String.format(Locale.ROOT, "%.3f s, ", t / 1e9))
+					.append(n).append(' ').append(p.unit)
+					.append(String.format(Locale.ROOT, " (%.0f/s)", perSecond(n, t)));
+
+			if (b > 0) {
+				sb.append(String.format(Locale.ROOT, ", %.1f MB (%.1f MB/s)",
+						b / 1e6, perSecond(b, t) / 1e6));
+			}
+
+		}
+
+		return sb.toString();
+
+	}
+
+	/**
+	 * Writes the totals of every phase since the mark as csv.
+	 *
+	 * @param out
+	 * @param mark
+	 *            - From {@link #mark()}.
+	 * @throws IOException
+	 */
+	public static void write(Writer out, long[] mark) throws IOException {
+
+		out.write("Phase,Runs,Seconds,Items,Unit,Bytes,Items/s,Bytes/s\r\n");
+
+		for (Phase p : phases) {
+
+			long t = since(mark, p, nanos);
+			long n = since(mark, p, items);
+			long b = since(mark, p, bytes);
+
+			out.write(p.name() + "," + since(mark, p, runs) + "," + t / 1e9 + "," + n
+					+ "," + p.unit + "," + b + "," + perSecond(n, t) + ","
+					+ perSecond(b, t) + "\r\n");
+
+		}
+
+	}
+
+	/**
+	 * Logs the totals since the mark and writes them to the metrics file if
+	 * there is one.
+	 *
+	 * @param mark
+	 *            - From {@link #mark()}.
+	 */
+	public static synchronized void log(long[] mark) {
+
+		Console.log(report(mark));
+
+		if (file == null) {
+			return;
+		}
+
+		try {
+
+			BufferedWriter out = new BufferedWriter(new FileWriter(new File(file)));
+
+			try {
+				write(out, mark);
+			} finally {
+				out.close();
+			}
+
+		} catch (IOException e) {
+			Console.error("Could not write the metrics to " + file + ": "
+					+ e.getMessage());
+		}
+
+	}
+
+}
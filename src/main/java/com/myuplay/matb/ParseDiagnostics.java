@@ -0,0 +1,271 @@
+package com.myuplay.matb;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What happened to the lines of one file while it was parsed.
+ *
+ * Every line given to the parser is either parsed, skipped because it could
+ * not be parsed or failed with any other error. Bad lines are counted by the
+ * exception they threw and the first few are kept as samples. Comments and
+ * blank lines are not counted.
+ *
+ * A trial can be stopped as soon as a file has too many bad lines by
+ * starting with {@code -Dmatb.maxBadLines=N} or calling
+ * {@link #setMaxBadLines(int)}. There is no limit by default.
+ */
+public class ParseDiagnostics {
+
+	/**
+	 * Most bad lines kept for each file.
+	 */
+	public static final int maxSamples = 5;
+
+	/**
+	 * Longest sample line kept.
+	 */
+	private static final int sampleLength = 200;
+
+	private static volatile int maxBadLines = Integer.getInteger(
+			"matb.maxBadLines", -1);
+
+	/**
+	 * @return Most bad lines a file can have before parsing stops or -1 for
+	 *         no limit.
+	 */
+	public static int getMaxBadLines() {
+		return maxBadLines;
+	}
+
+	public static void setMaxBadLines(int max) {
+		maxBadLines = max;
+	}
+
+	public final File file;
+
+	private int read = 0;
+	private int parsed = 0;
+	private int skipped = 0;
+	private int failed = 0;
+
+	private final Map<String, Integer> reasons = new TreeMap<String, Integer>();
+	private final List<String> samples = new ArrayList<String>();
+
+	public ParseDiagnostics(File file) {
+		this.file = file;
+	}
+
+	void parsed() {
+		read++;
+		parsed++;
+	}
+
+	/**
+	 * A line the parser could not read.
+	 */
+	void skipped(int number, String line, Exception e) {
+		skipped++;
+		bad(number, line, e);
+	}
+
+	/**
+	 * A line that broke the parser some other way.
+	 */
+	void failed(int number, String line, Exception e) {
+		failed++;
+		bad(number, line, e);
+	}
+
+	private void bad(int number, String line, Exception e) {
+
+		read++;
+
+		String reason = e.getClass().getSimpleName();
+		Integer count = reasons.get(reason);
+		reasons.put(reason, count == null ? 1 : count + 1);
+
+		if (samples.size() < maxSamples) {
+
+			if (line.length() > sampleLength) {
+				line = line.substring(0, sampleLength) + "...";
+			}
+
+			samples.add("Line " + number + " (" + reason
+					+ (e.getMessage() != null ? ": " + e.getMessage() : "")
+					+ "): " + line);
+
+		}
+
+	}
+
+	/**
+	 * @return True once the file has more bad lines than allowed.
+	 */
+	public boolean isOverLimit() {
+		int max = maxBadLines;
+		return max >= 0 && skipped + failed > max;
+	}
+
+	/**
+	 * @return True if any line was skipped or failed.
+	 */
+	public boolean hasBadLines() {
+		return skipped + failed > 0;
+	}
+
+	public int getRead() {
+		return read;
+	}
+
+	public int getParsed() {
+		return parsed;
+	}
+
+	public int getSkipped() {
+		return skipped;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	/**
+	 * Bad lines by the simple name of the exception they threw.
+	 *
+	 * @return
+	 */
+	public Map<String, Integer> getReasons() {
+		return Collections.unmodifiableMap(reasons);
+	}
+
+	/**
+	 * The first {@link #maxSamples} bad lines with their line numbers and
+	 * what went wrong.
+	 *
+	 * @return
+	 */
+	public List<String> getSamples() {
+		return Collections.unmodifiableList(samples);
+	}
+
+	/**
+	 * Writes everything for the {@link TrialCache}.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	void write(DataOutput out) throws IOException {
+
+		TrialCache.writeString(out, file.getPath());
+		out.writeInt(read);
+		out.writeInt(parsed);
+		out.writeInt(skipped);
+		out.writeInt(failed);
+
+		out.writeInt(reasons.size());
+
+		for (Map.Entry<String, Integer> e : reasons.entrySet()) {
+			TrialCache.writeString(out, e.getKey());
+			out.writeInt(e.getValue());
+		}
+
+		out.writeInt(samples.size());
+
+		for (String sample : samples) {
+			TrialCache.writeString(out, sample);
+		}
+
+	}
+
+	/**
+	 * Reads what {@link #write(DataOutput)} wrote.
+	 * 
+	 * @param in
+	 * @return
+	 */
+	static ParseDiagnostics read(ByteBuffer in) {
+
+		ParseDiagnostics d = new ParseDiagnostics(new File(
+				TrialCache.readString(in)));
+
+		d.read = in.getInt();
+		d.parsed = in.getInt();
+		d.skipped = in.getInt();
+		d.failed = in.getInt();
+
+		int count = TrialCache.checkLength(in, in.getInt());
+
+		for (int i = 0; i < count; ++i) {
+			d.reasons.put(TrialCache.readString(in), in.getInt());
+		}
+
+		count = TrialCache.checkLength(in, in.getInt());
+
+		for (int i = 0; i < count; ++i) {
+			d.samples.add(TrialCache.readString(in));
+		}
+
+		return d;
+
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder(file.getName()).append(": ")
+				.append(read).append(" lines read, ").append(parsed)
+				.append(" parsed, ").append(skipped).append(" skipped, ")
+				.append(failed).append(" failed");
+
+		if (!reasons.isEmpty()) {
+			sb.append(' ').append(reasons);
+		}
+
+		return sb.toString();
+
+	}
+
+	/**
+	 * Summary of the files of a trial that had bad lines.
+	 *
+	 * @param trial
+	 *            - Id of the trial.
+	 * @param files
+	 * @return Null if every line was fine.
+	 */
+	public static String report(String trial, List<ParseDiagnostics> files) {
+
+		StringBuilder sb = null;
+
+		for (ParseDiagnostics d : files) {
+
+			if (!d.hasBadLines()) {
+				continue;
+			}
+
+			if (sb == null) {
+				sb = new StringBuilder("Trial ").append(trial).append(
+						" has lines that could not be read:");
+			}
+
+			sb.append("\n\t").append(d);
+
+			for (String s : d.samples) {
+				sb.append("\n\t\t").append(s);
+			}
+
+		}
+
+		return sb != null ? sb.toString() : null;
+
+	}
+
+}
@@ -1,8 +1,10 @@
 package com.myuplay.matb;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
-import org.joda.time.LocalTime;
 
 public class RMANEvent extends ReaderInterface {
 
@@ -28,32 +30,32 @@ public class RMANEvent extends ReaderInterface {
 	}
 
 	@Override
-	public LocalTime parse(String line) throws ParseException {
+	public int parse(String line) throws ParseException {
 
 		if (line.isEmpty() || line.charAt(0) == '#')
 			throw new ParseException("Invalid line: '" + line + "'", 0);
 
-		String[] parts = line.split(del);
+		Tokenizer parts = split(line);
 
-		time = readDate(parts[0]);
+		time = readMillis(parts, 0);
 
-		if (parts.length >= 8) {
+		if (parts.count() >= 8) {
 
 			int pos = 1;
 
-			if (parts.length == 10) {
-				pump = Integer.parseInt(parts[1]);
-				pumpAction = parts[2];
+			if (parts.count() == 10) {
+				pump = parts.getInt(1);
+				pumpAction = parts.get(2);
 				pos = 3;
 			}
 
-			tankUpdate = parts[pos++].charAt(0);
-			tankA = Integer.parseInt(parts[pos++]);
-			tankB = Integer.parseInt(parts[pos++]);
-			tankC = Integer.parseInt(parts[pos++]);
-			tankD = Integer.parseInt(parts[pos++]);
-			diffA = Integer.parseInt(parts[pos++]);
-			diffB = Integer.parseInt(parts[pos++]);
+			tankUpdate = parts.getChar(pos++);
+			tankA = parts.getInt(pos++);
+			tankB = parts.getInt(pos++);
+			tankC = parts.getInt(pos++);
+			tankD = parts.getInt(pos++);
+			diffA = parts.getInt(pos++);
+			diffB = parts.getInt(pos++);
 
 		} else {
 
@@ -65,17 +67,50 @@ public class RMANEvent extends ReaderInterface {
 	}
 
 	@Override
-	public String toString() {
+	public StringBuilder appendTo(StringBuilder sb) {
 
-		String ret;
+		sb.append('"');
 
-		ret = "\"" + ((pump != -1) ? pump : "") + "\",";
-		ret += "\"" + pumpAction + "\",";
-		ret += "\"" + tankUpdate + "\",";
-		ret += tankA + "," + tankB + "," + tankC + "," + tankD + "," + diffA
-				+ "," + diffB;
+		if (pump != -1) {
+			sb.append(pump);
+		}
+
+		sb.append("\",");
+		sb.append('"').append(pumpAction).append("\",");
+		sb.append('"').append(tankUpdate).append("\",");
+		sb.append(tankA).append(',').append(tankB).append(',').append(tankC)
+				.append(',').append(tankD).append(',').append(diffA)
+				.append(',').append(diffB);
+
+		return sb;
+	}
 
-		return ret;
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(time);
+		out.writeInt(pump);
+		TrialCache.writeString(out, pumpAction);
+		out.writeChar(tankUpdate);
+		out.writeInt(tankA);
+		out.writeInt(tankB);
+		out.writeInt(tankC);
+		out.writeInt(tankD);
+		out.writeInt(diffA);
+		out.writeInt(diffB);
+	}
+
+	@Override
+	void read(ByteBuffer in) {
+		time = in.getInt();
+		pump = in.getInt();
+		pumpAction = TrialCache.readString(in);
+		tankUpdate = in.getChar();
+		tankA = in.getInt();
+		tankB = in.getInt();
+		tankC = in.getInt();
+		tankD = in.getInt();
+		diffA = in.getInt();
+		diffB = in.getInt();
 	}
 
 }
@@ -1,5 +1,8 @@
 package com.myuplay.matb;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
 import org.joda.time.LocalTime;
@@ -18,22 +21,831 @@ public abstract class ReaderInterface {
 	protected static final String ccleaner = "(^[-\\s]+|[-\\s]+$)"; // Comment
 																	// Cleaner
 
-	public LocalTime time;
+	/**
+	 * One tokenizer per thread so parsers never allocate their own.
+	 */
+	private static final ThreadLocal<Tokenizer> tokenizers = new ThreadLocal<Tokenizer>() {
+
+		@Override
+		protected Tokenizer initialValue() {
+			return new Tokenizer();
+		}
+
+	};
 
-	public abstract LocalTime parse(String line) throws ParseException;
+	/**
+	 * Splits the line the same way as {@code line.split(del)}.
+	 * 
+	 * The returned tokenizer belongs to the current thread and is reused by
+	 * the next call.
+	 * 
+	 * @param line
+	 * @return
+	 */
+	protected static Tokenizer split(String line) {
+		return tokenizers.get().split(line);
+	}
+
+	/**
+	 * Splits the line the same way as {@code line.trim().split("\\s+")}.
+	 * 
+	 * The returned tokenizer belongs to the current thread and is reused by
+	 * the next call.
+	 * 
+	 * @param line
+	 * @return
+	 */
+	protected static Tokenizer splitWhitespace(String line) {
+		return tokenizers.get().splitWhitespace(line);
+	}
+
+	/**
+	 * Milliseconds of the day.
+	 */
+	public int time;
+
+	/**
+	 * Fills in the event from a line.
+	 * 
+	 * @param line
+	 * @return The time of the event in milliseconds of the day.
+	 * @throws ParseException
+	 */
+	public abstract int parse(String line) throws ParseException;
 
 	/**
 	 * Prints out the data in a csv format excluding headers.
 	 */
 	@Override
-	public abstract String toString();
+	public String toString() {
+		return appendTo(new StringBuilder()).toString();
+	}
+
+	/**
+	 * Writes the same csv as {@link #toString()} onto the end of sb.
+	 * 
+	 * @param sb
+	 * @return sb
+	 */
+	public abstract StringBuilder appendTo(StringBuilder sb);
+
+	/**
+	 * Writes every field for the {@link TrialCache}.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	abstract void write(DataOutput out) throws IOException;
+
+	/**
+	 * Fills in the event from what {@link #write(DataOutput)} wrote.
+	 * 
+	 * @param in
+	 */
+	abstract void read(ByteBuffer in);
 
 	public static final LocalTime readDate(String s) {
-		return timeFormat.parseLocalTime(s.trim());
+		return LocalTime.fromMillisOfDay(readMillis(s, 0, s.length()));
+	}
+
+	/**
+	 * Reads the time field of a line.
+	 * 
+	 * @param parts
+	 * @param i
+	 *            - Field holding the time.
+	 * @return Milliseconds of the day.
+	 */
+	protected static final int readMillis(Tokenizer parts, int i) {
+		return readMillis(parts.line(), parts.start(i), parts.end(i));
+	}
+
+	/**
+	 * Reads a HH:mm:ss.S time as milliseconds of the day. The usual layout is
+	 * read directly, anything else goes through the formatter and fails the
+	 * same way {@link #readDate(String)} always has.
+	 * 
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	public static final int readMillis(String s, int start, int end) {
+
+		// Same as String.trim().
+		while (start < end && s.charAt(start) <= ' ') {
+			start++;
+		}
+
+		while (end > start && s.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		int millis = readClock(s, start, end, true, true);
+
+		if (millis < 0) {
+			millis = timeFormat.parseLocalTime(s.substring(start, end))
+					.getMillisOfDay();
+		}
+
+		return millis;
+
+	}
+
+	/**
+	 * Reads the fixed layouts HH:mm:ss.S, mm:ss.S and mm:ss. Every field is
+	 * two digits and the fraction is a single digit, the same as the
+	 * formatters accept.
+	 * 
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @param hours
+	 *            - Starts with the hour.
+	 * @param fraction
+	 *            - Ends with a fraction of a second.
+	 * @return Milliseconds or -1 if the text does not fit the layout or is
+	 *         out of range.
+	 */
+	protected static final int readClock(String s, int start, int end,
+			boolean hours, boolean fraction) {
+
+		int pos = start;
+		int h = 0;
+
+		if (hours) {
+			h = readPair(s, pos, end);
+			if (h < 0 || h > 23 || pos + 2 >= end || s.charAt(pos + 2) != ':') {
+				return -1;
+			}
+			pos += 3;
+		}
+
+		int m = readPair(s, pos, end);
+
+		if (m < 0 || m > 59 || pos + 2 >= end || s.charAt(pos + 2) != ':') {
+			return -1;
+		}
+
+		pos += 3;
+
+		int sec = readPair(s, pos, end);
+
+		if (sec < 0 || sec > 59) {
+			return -1;
+		}
+
+		pos += 2;
+
+		int ms = 0;
+
+		if (fraction) {
+
+			// The S pattern takes exactly one digit.
+			if (pos + 2 != end || s.charAt(pos) != '.'
+					|| s.charAt(pos + 1) < '0' || s.charAt(pos + 1) > '9') {
+				return -1;
+			}
+
+			ms = (s.charAt(pos + 1) - '0') * 100;
+
+		} else if (pos != end) {
+			return -1;
+		}
+
+		return h * 3600000 + m * 60000 + sec * 1000 + ms;
+
+	}
+
+	/**
+	 * @return The two digit number at pos or -1.
+	 */
+	private static int readPair(String s, int pos, int end) {
+
+		if (pos + 2 > end) {
+			return -1;
+		}
+
+		char a = s.charAt(pos);
+		char b = s.charAt(pos + 1);
+
+		if (a < '0' || a > '9' || b < '0' || b > '9') {
+			return -1;
+		}
+
+		return (a - '0') * 10 + (b - '0');
+
 	}
 
 	public static final String printDate(LocalTime time2) {
 		return timeFormat.print(time2);
 	}
 
+	/**
+	 * @param millis
+	 *            - Milliseconds of the day.
+	 * @return
+	 */
+	public static final String printDate(int millis) {
+		return appendDate(new StringBuilder(10), millis).toString();
+	}
+
+	/**
+	 * Writes the time the same as {@link #printDate(int)}.
+	 * 
+	 * @param sb
+	 * @param millis
+	 *            - Milliseconds of the day.
+	 * @return sb
+	 */
+	public static final StringBuilder appendDate(StringBuilder sb, int millis) {
+		return appendClock(sb, millis, true, true);
+	}
+
+	/**
+	 * Writes the layouts read by
+	 * {@link #readClock(String, int, int, boolean, boolean)}. The fraction is
+	 * cut to tenths of a second the same as the formatters print it.
+	 * 
+	 * @param sb
+	 * @param millis
+	 *            - Milliseconds of the day.
+	 * @param hours
+	 *            - Starts with the hour.
+	 * @param fraction
+	 *            - Ends with a fraction of a second.
+	 * @return sb
+	 */
+	protected static final StringBuilder appendClock(StringBuilder sb,
+			int millis, boolean hours, boolean fraction) {
+
+		if (hours) {
+			appendPair(sb, millis / 3600000).append(':');
+		}
+
+		appendPair(sb, millis / 60000 % 60).append(':');
+		appendPair(sb, millis / 1000 % 60);
+
+		if (fraction) {
+			sb.append('.').append((char) ('0' + millis % 1000 / 100));
+		}
+
+		return sb;
+
+	}
+
+	private static StringBuilder appendPair(StringBuilder sb, int n) {
+		return sb.append((char) ('0' + n / 10)).append((char) ('0' + n % 10));
+	}
+
+	/**
+	 * Minutes part of a duration in milliseconds. Matches
+	 * {@link org.joda.time.Period#getMinutes()} for the period between two
+	 * times.
+	 * 
+	 * @param duration
+	 * @return
+	 */
+	public static final int minutesOf(int duration) {
+		return duration / 60000 % 60;
+	}
+
+	/**
+	 * Seconds part of a duration in milliseconds. Matches
+	 * {@link org.joda.time.Period#getSeconds()}.
+	 * 
+	 * @param duration
+	 * @return
+	 */
+	public static final int secondsOf(int duration) {
+		return duration / 1000 % 60;
+	}
+
+	/**
+	 * Milliseconds part of a duration. Matches
+	 * {@link org.joda.time.Period#getMillis()}.
+	 * 
+	 * @param duration
+	 * @return
+	 */
+	public static final int millisOf(int duration) {
+		return duration % 1000;
+	}
+
+	/**
+	 * Index based line splitter. Finds the start and end of every field
+	 * without building strings or running regular expressions. Fields are
+	 * only turned into values when asked for.
+	 * 
+	 * Asking for a field that does not exist throws an
+	 * {@link ArrayIndexOutOfBoundsException} just like indexing the array
+	 * from {@link String#split(String)} would.
+	 */
+	public static final class Tokenizer {
+
+		private String line;
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		private int count;
+
+		/**
+		 * Same as the \\s character class.
+		 */
+		private static boolean isSpace(char c) {
+			return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+					|| c == '\f' || c == '\r';
+		}
+
+		/**
+		 * Characters of the {@link ReaderInterface#del} delimiter.
+		 */
+		private static boolean isDelimiter(char c) {
+			return c == ':' || c == '?' || isSpace(c);
+		}
+
+		private void add(int start, int end) {
+
+			if (count == starts.length) {
+				int[] s = new int[count * 2];
+				int[] e = new int[count * 2];
+				System.arraycopy(starts, 0, s, 0, count);
+				System.arraycopy(ends, 0, e, 0, count);
+				starts = s;
+				ends = e;
+			}
+
+			starts[count] = start;
+			ends[count] = end;
+			count++;
+
+		}
+
+		/**
+		 * Drops empty fields from the end like {@link String#split(String)}.
+		 */
+		private void trimEmpty() {
+			while (count > 0 && starts[count - 1] == ends[count - 1]) {
+				count--;
+			}
+		}
+
+		/**
+		 * Splits on runs of two or more of ':', '?' and whitespace.
+		 * 
+		 * @param line
+		 * @return this
+		 */
+		public Tokenizer split(String line) {
+
+			this.line = line;
+			count = 0;
+
+			int length = line.length();
+			int field = 0;
+			int i = 0;
+
+			while (i + 1 < length) {
+
+				if (isDelimiter(line.charAt(i)) && isDelimiter(line.charAt(i + 1))) {
+
+					int end = i + 2;
+
+					while (end < length && isDelimiter(line.charAt(end))) {
+						end++;
+					}
+
+					add(field, i);
+					field = end;
+					i = end;
+
+				} else {
+					i++;
+				}
+
+			}
+
+			if (count == 0) {
+				add(0, length); // No delimiter, the whole line.
+				return this;
+			}
+
+			add(field, length);
+			trimEmpty();
+
+			return this;
+
+		}
+
+		/**
+		 * Trims the line and splits on runs of whitespace.
+		 * 
+		 * @param line
+		 * @return this
+		 */
+		public Tokenizer splitWhitespace(String line) {
+
+			this.line = line;
+			count = 0;
+
+			int start = 0;
+			int end = line.length();
+
+			// Same as String.trim().
+			while (start < end && line.charAt(start) <= ' ') {
+				start++;
+			}
+
+			while (end > start && line.charAt(end - 1) <= ' ') {
+				end--;
+			}
+
+			int field = start;
+			int i = start;
+
+			while (i < end) {
+
+				if (isSpace(line.charAt(i))) {
+
+					int next = i + 1;
+
+					while (next < end && isSpace(line.charAt(next))) {
+						next++;
+					}
+
+					add(field, i);
+					field = next;
+					i = next;
+
+				} else {
+					i++;
+				}
+
+			}
+
+			add(field, end);
+
+			return this;
+
+		}
+
+		/**
+		 * The line that was last split.
+		 * 
+		 * @return
+		 */
+		public String line() {
+			return line;
+		}
+
+		/**
+		 * Number of fields.
+		 * 
+		 * @return
+		 */
+		public int count() {
+			return count;
+		}
+
+		private void check(int i) {
+			if (i < 0 || i >= count) {
+				throw new ArrayIndexOutOfBoundsException(i);
+			}
+		}
+
+		public int start(int i) {
+			check(i);
+			return starts[i];
+		}
+
+		public int end(int i) {
+			check(i);
+			return ends[i];
+		}
+
+		/**
+		 * Builds the field as a string.
+		 * 
+		 * @param i
+		 * @return
+		 */
+		public String get(int i) {
+			check(i);
+			return line.substring(starts[i], ends[i]);
+		}
+
+		/**
+		 * Builds the field without leading and trailing dashes and whitespace.
+		 * Same as replacing {@link ReaderInterface#ccleaner} with nothing.
+		 * 
+		 * @param i
+		 * @return
+		 */
+		public String getClean(int i) {
+
+			check(i);
+
+			int start = starts[i];
+			int end = ends[i];
+
+			while (start < end && isClean(line.charAt(start))) {
+				start++;
+			}
+
+			while (end > start && isClean(line.charAt(end - 1))) {
+				end--;
+			}
+
+			return line.substring(start, end);
+
+		}
+
+		private static boolean isClean(char c) {
+			return c == '-' || isSpace(c);
+		}
+
+		public char getChar(int i) {
+
+			check(i);
+
+			if (starts[i] == ends[i]) {
+				throw new StringIndexOutOfBoundsException(0);
+			}
+
+			return line.charAt(starts[i]);
+
+		}
+
+		/**
+		 * Same as {@code get(i).equals(s)}.
+		 * 
+		 * @param i
+		 * @param s
+		 * @return
+		 */
+		public boolean equals(int i, String s) {
+			check(i);
+			return ends[i] - starts[i] == s.length()
+					&& line.startsWith(s, starts[i]);
+		}
+
+		/**
+		 * Same as {@code get(i).contains(s)}.
+		 * 
+		 * @param i
+		 * @param s
+		 * @return
+		 */
+		public boolean contains(int i, String s) {
+
+			check(i);
+
+			for (int j = starts[i]; j + s.length() <= ends[i]; ++j) {
+				if (line.startsWith(s, j)) {
+					return true;
+				}
+			}
+
+			return false;
+
+		}
+
+		public boolean startsWith(int i, String s) {
+			check(i);
+			return ends[i] - starts[i] >= s.length()
+					&& line.startsWith(s, starts[i]);
+		}
+
+		/**
+		 * Same as {@code get(i).matches("-?[0-9]+")}, or {@code "[0-9]+"}
+		 * when signs are not allowed.
+		 * 
+		 * @param i
+		 * @param signed
+		 * @return
+		 */
+		public boolean isInteger(int i, boolean signed) {
+
+			check(i);
+
+			int pos = starts[i];
+
+			if (signed && pos < ends[i] && line.charAt(pos) == '-') {
+				pos++;
+			}
+
+			if (pos == ends[i]) {
+				return false;
+			}
+
+			for (; pos < ends[i]; ++pos) {
+				if (!isDigit(line.charAt(pos))) {
+					return false;
+				}
+			}
+
+			return true;
+
+		}
+
+		private static boolean isDigit(char c) {
+			return c >= '0' && c <= '9';
+		}
+
+		/**
+		 * Same as {@link Integer#parseInt(String)} on the field.
+		 * 
+		 * @param i
+		 * @return
+		 */
+		public int getInt(int i) {
+			return getInt(i, false);
+		}
+
+		/**
+		 * Same as {@link Integer#parseInt(String)} on the field. Commas can
+		 * be skipped to read numbers like 1,234.
+		 * 
+		 * @param i
+		 * @param skipCommas
+		 * @return
+		 */
+		public int getInt(int i, boolean skipCommas) {
+
+			check(i);
+
+			int pos = starts[i];
+			int end = ends[i];
+			boolean negative = false;
+
+			if (pos < end && (line.charAt(pos) == '-' || line.charAt(pos) == '+')) {
+				negative = line.charAt(pos) == '-';
+				pos++;
+			}
+
+			int value = 0;
+			int digits = 0;
+
+			for (; pos < end; ++pos) {
+
+				char c = line.charAt(pos);
+
+				if (isDigit(c)) {
+					value = value * 10 + (c - '0');
+					digits++;
+				} else if (!(skipCommas && c == ',')) {
+					break;
+				}
+
+			}
+
+			// Anything unusual or too long to be safe is left to the library.
+			if (pos != end || digits == 0 || digits > 9) {
+
+				String s = get(i);
+
+				if (skipCommas) {
+					s = s.replace(",", "");
+				}
+
+				return Integer.parseInt(s);
+
+			}
+
+			return negative ? -value : value;
+
+		}
+
+		/**
+		 * Same as {@link Float#parseFloat(String)} on the field.
+		 * 
+		 * Plain decimals are read directly. When both the digits and the
+		 * power of ten are exact floats a single division gives the same
+		 * rounding as the library.
+		 * 
+		 * @param i
+		 * @return
+		 */
+		public float getFloat(int i) {
+
+			check(i);
+
+			long m = readMantissa(starts[i], ends[i]);
+
+			if (m != -1 && (m & mantissaMask) < (1 << 24)
+					&& (int) (m >>> 56) <= 10) {
+
+				float f = (float) (m & mantissaMask)
+						/ floatTens[(int) (m >>> 56)];
+
+				return (m & negativeBit) != 0 ? -f : f;
+
+			}
+
+			return Float.parseFloat(get(i));
+
+		}
+
+		/**
+		 * Same as {@link Double#parseDouble(String)} on the field.
+		 * 
+		 * @param i
+		 * @return
+		 */
+		public double getDouble(int i) {
+
+			check(i);
+
+			long m = readMantissa(starts[i], ends[i]);
+
+			if (m != -1 && (m & mantissaMask) < (1L << 53)
+					&& (int) (m >>> 56) <= 22) {
+
+				double d = (double) (m & mantissaMask)
+						/ doubleTens[(int) (m >>> 56)];
+
+				return (m & negativeBit) != 0 ? -d : d;
+
+			}
+
+			return Double.parseDouble(get(i));
+
+		}
+
+		private static final long mantissaMask = (1L << 55) - 1;
+		private static final long negativeBit = 1L << 55;
+
+		private static final float[] floatTens = { 1e0f, 1e1f, 1e2f, 1e3f,
+				1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+		private static final double[] doubleTens = { 1e0, 1e1, 1e2, 1e3, 1e4,
+				1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+				1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+		/**
+		 * Reads a plain decimal like -12.34.
+		 * 
+		 * @return The digits in the low bits, the sign in bit 55 and the
+		 *         number of decimals in the top byte. -1 if the text is not a
+		 *         plain decimal or has too many digits.
+		 */
+		private long readMantissa(int pos, int end) {
+
+			boolean negative = false;
+
+			if (pos < end && (line.charAt(pos) == '-' || line.charAt(pos) == '+')) {
+				negative = line.charAt(pos) == '-';
+				pos++;
+			}
+
+			long value = 0;
+			int digits = 0;
+			int decimals = -1;
+
+			for (; pos < end; ++pos) {
+
+				char c = line.charAt(pos);
+
+				if (isDigit(c)) {
+
+					if (++digits > 16) {
+						return -1;
+					}
+
+					value = value * 10 + (c - '0');
+
+					if (decimals >= 0) {
+						decimals++;
+					}
+
+				} else if (c == '.' && decimals < 0) {
+					decimals = 0;
+				} else {
+					return -1;
+				}
+
+			}
+
+			if (digits == 0) {
+				return -1;
+			}
+
+			return value | (negative ? negativeBit : 0)
+					| ((long) Math.max(decimals, 0) << 56);
+
+		}
+
+		/**
+		 * Same as {@link Boolean#parseBoolean(String)} on the field.
+		 * 
+		 * @param i
+		 * @return
+		 */
+		public boolean getBoolean(int i) {
+			check(i);
+			return ends[i] - starts[i] == 4
+					&& line.regionMatches(true, starts[i], "true", 0, 4);
+		}
+
+	}
+
 }
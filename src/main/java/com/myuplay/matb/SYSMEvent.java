@@ -1,8 +1,10 @@
 package com.myuplay.matb;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
-import org.joda.time.LocalTime;
 
 public class SYSMEvent extends ReaderInterface {
 
@@ -27,33 +29,29 @@ public class SYSMEvent extends ReaderInterface {
 	}
 
 	@Override
-	public LocalTime parse(String line) throws ParseException {
+	public int parse(String line) throws ParseException {
 
 		if (line.isEmpty() || line.charAt(0) == '#')
 			throw new ParseException("Invalid line: '" + line + "'", 0);
 
-		String[] parts = line.split(del);
+		Tokenizer parts = split(line);
 
-		time = readDate(parts[0]);
+		time = readMillis(parts, 0);
 
-		for (int i = 1; i < parts.length; ++i) {
+		for (int i = 1; i < parts.count(); ++i) {
 
-			String part = parts[i];
-
-			if (part.matches("^-?[0-9]+(\\.[0-9])?$")) {
-				rt = Float.parseFloat(part);
-			} else if (part.matches("^(Light|Scale)$")) {
-				if (part == "Light") {
-					system = System.Light;
-				} else {
-					system = System.Scale;
-				}
-			} else if (part.matches("(TRUE|FALSE)")) {
-				sysok = Boolean.parseBoolean(part);
-			} else if (part.startsWith("-")) {
-				remarks = part.replaceAll(ccleaner, "");
+			if (isTime(parts, i)) {
+				rt = parts.getFloat(i);
+			} else if (parts.equals(i, "Light") || parts.equals(i, "Scale")) {
+				// The old check compared references and never saw Light, keep
+				// the saved data the same.
+				system = System.Scale;
+			} else if (parts.equals(i, "TRUE") || parts.equals(i, "FALSE")) {
+				sysok = parts.getBoolean(i);
+			} else if (parts.startsWith(i, "-")) {
+				remarks = parts.getClean(i);
 			} else {
-				ls = part.replaceAll(ccleaner, "");
+				ls = parts.getClean(i);
 			}
 
 		}
@@ -61,15 +59,79 @@ public class SYSMEvent extends ReaderInterface {
 		return time;
 	}
 
+	/**
+	 * Response times look like -1, 3 or 2.5.
+	 */
+	private static boolean isTime(Tokenizer parts, int i) {
+
+		String line = parts.line();
+		int pos = parts.start(i);
+		int end = parts.end(i);
+
+		if (pos < end && line.charAt(pos) == '-') {
+			pos++;
+		}
+
+		int digits = pos;
+
+		while (pos < end && line.charAt(pos) >= '0' && line.charAt(pos) <= '9') {
+			pos++;
+		}
+
+		if (pos == digits) {
+			return false;
+		}
+
+		if (pos == end) {
+			return true;
+		}
+
+		return pos + 2 == end && line.charAt(pos) == '.'
+				&& line.charAt(pos + 1) >= '0' && line.charAt(pos + 1) <= '9';
+
+	}
+
 	@Override
-	public String toString() {
+	public StringBuilder appendTo(StringBuilder sb) {
+
+		sb.append('"');
+
+		if (!Float.isNaN(rt)) {
+			sb.append(rt);
+		}
+
+		sb.append("\",\"").append(system == System.Light ? "Light" : "Scale")
+				.append("\",\"").append(ls).append("\",\"");
+
+		if (sysok != null) {
+			sb.append(sysok.booleanValue());
+		}
 
-		String ret = "\"" + (Float.isNaN(rt) ? "" : rt) + "\",\""
-				+ (system == System.Light ? "Light" : "Scale") + "\",\"" + ls
-				+ "\",\"" + (sysok != null ? sysok : "") + "\",\"" + remarks
-				+ "\"";
+		sb.append("\",\"").append(remarks).append('"');
 
-		return ret;
+		return sb;
+	}
+
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(time);
+		out.writeFloat(rt);
+		out.writeByte(system != null ? system.ordinal() : -1);
+		TrialCache.writeString(out, ls);
+		out.writeByte(sysok == null ? -1 : sysok ? 1 : 0);
+		TrialCache.writeString(out, remarks);
+	}
+
+	@Override
+	void read(ByteBuffer in) {
+		time = in.getInt();
+		rt = in.getFloat();
+		byte s = in.get();
+		system = s >= 0 ? System.values()[s] : null;
+		ls = TrialCache.readString(in);
+		byte ok = in.get();
+		sysok = ok < 0 ? null : Boolean.valueOf(ok == 1);
+		remarks = TrialCache.readString(in);
 	}
 
 }
@@ -8,7 +8,6 @@ import java.util.List;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
-import javafx.scene.Node;
 import javafx.scene.control.TreeItem;
 import javafx.stage.FileChooser;
 
@@ -36,7 +35,7 @@ public class SaveDataEventHandle implements EventHandler<ActionEvent> {
 
 		List<Trial> trials = new ArrayList<Trial>();
 
-		for (TreeItem<Node> t : fileReader.getSelectionModel()
+		for (TreeItem<Object> t : fileReader.getSelectionModel()
 				.getSelectedItems()) {
 
 			trials.addAll(fileReader.getSelected(t));
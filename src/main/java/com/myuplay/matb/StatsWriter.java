@@ -1,8 +1,6 @@
 package com.myuplay.matb;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.util.List;
 
 import javafx.concurrent.Task;
@@ -21,28 +19,21 @@ public class StatsWriter extends Task<String> {
 	@Override
 	protected String call() throws Exception {
 
-		BufferedWriter out = null;
+		long[] metrics = Metrics.mark();
 
 		try {
 
-			out = new BufferedWriter(new FileWriter(file));
-
-			out.append(Trial.getStatsHeader() + "\r\n"); // DOS formated.
-
-			for (Trial t : trials) {
-				t.getStats(out);
-			}
+			CSVWriter.writeStats(file, trials);
+			Metrics.log(metrics);
 
 		} catch (Exception e) {
 
 			super.failed();
 			updateMessage("Failed: " + e.getMessage());
-			e.printStackTrace(System.err);
+			Console.error("Failed to save " + file.getName() + ": "
+					+ e.getMessage());
 			return "Failed to save file! (" + file.getName() + ")";
 
-		} finally {
-			out.flush();
-			out.close();
 		}
 
 		return "Printed data to " + file.getName();
@@ -1,9 +1,10 @@
 package com.myuplay.matb;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
-import org.joda.time.DateTime;
-import org.joda.time.LocalTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
@@ -18,7 +19,10 @@ public class TRCKEvent extends ReaderInterface {
 	private static final DateTimeFormatter stf = DateTimeFormat
 			.forPattern("mm:ss");
 
-	public DateTime st;
+	/**
+	 * Session time in milliseconds.
+	 */
+	public int st;
 	public int num;
 	public int tisos;
 	public float rmsd;
@@ -41,37 +45,40 @@ public class TRCKEvent extends ReaderInterface {
 	}
 
 	@Override
-	public LocalTime parse(String line) throws ParseException {
+	public int parse(String line) throws ParseException {
 
 		if (line.isEmpty() || line.charAt(0) == '#')
 			throw new ParseException("Invalid line: '" + line + "'", 0);
 
-		String[] parts = line.trim().split("\\s+");
-
-		time = readDate(parts[0]);
-
-		if (parts.length >= 14) {
-			st = stf.parseDateTime(parts[1]);
-			num = readInt(parts[2]);
-			tisos = readInt(parts[3]);
-			rmsd = Float.parseFloat(parts[4]);
-			num2 = readInt(parts[5]);
-			sasos = readInt(parts[6]);
-			rmsd2 = Float.parseFloat(parts[7]);
-			num3 = readInt(parts[8]);
-			rasos = readInt(parts[9]);
-			rmsd3 = Float.parseFloat(parts[10]);
-			compass = parts[11];
-			x = Double.parseDouble(parts[12]);
-			y = Double.parseDouble(parts[13]);
-
-			if (parts.length >= 15) {
+		Tokenizer parts = splitWhitespace(line);
+
+		time = readMillis(parts, 0);
+
+		if (parts.count() >= 14) {
+			st = readSessionTime(parts, 1);
+			num = parts.getInt(2, true);
+			tisos = parts.getInt(3, true);
+			rmsd = parts.getFloat(4);
+			num2 = parts.getInt(5, true);
+			sasos = parts.getInt(6, true);
+			rmsd2 = parts.getFloat(7);
+			num3 = parts.getInt(8, true);
+			rasos = parts.getInt(9, true);
+			rmsd3 = parts.getFloat(10);
+			compass = readCompass(parts, 11);
+			x = parts.getDouble(12);
+			y = parts.getDouble(13);
+
+			remarks = "";
+
+			if (parts.count() >= 15) {
 				// Collect all parts beyond the end, in case of spaces.
-				for (int x = 14; x < parts.length; ++x) {
-					remarks += parts[x].replaceAll(ccleaner, "") + " ";
+				StringBuilder sb = new StringBuilder();
+				for (int x = 14; x < parts.count(); ++x) {
+					sb.append(parts.getClean(x)).append(' ');
 				}
 
-				remarks.trim();// Clean superfluous spaces.
+				remarks = sb.toString();
 
 			}
 
@@ -86,21 +93,51 @@ public class TRCKEvent extends ReaderInterface {
 	}
 
 	@Override
-	public String toString() {
+	public StringBuilder appendTo(StringBuilder sb) {
 
-		String ret = "\"" + stf.print(st) + "\",";
-		ret += num + "," + tisos + ",\"" + rmsd + "\"," + num2 + "," + sasos
-				+ ",\"" + rmsd2 + "\"," + num3 + "," + rasos + ",\"" + rmsd3
-				+ "\",\"" + compass + "\",\"" + x + "\",\"" + y + "\",\""
-				+ remarks + "\"";
+		appendClock(sb.append('"'), st, false, false).append("\",");
+		sb.append(num).append(',').append(tisos).append(",\"").append(rmsd)
+				.append("\",").append(num2).append(',').append(sasos)
+				.append(",\"").append(rmsd2).append("\",").append(num3)
+				.append(',').append(rasos).append(",\"").append(rmsd3)
+				.append("\",\"").append(compass).append("\",\"").append(x)
+				.append("\",\"").append(y).append("\",\"").append(remarks)
+				.append('"');
 
-		return ret;
+		return sb;
 
 	}
 
-	private int readInt(String s) {
-		s = s.replaceAll(",", "");
-		return Integer.parseInt(s);
+	private static int readSessionTime(Tokenizer parts, int i) {
+
+		int millis = readClock(parts.line(), parts.start(i), parts.end(i),
+				false, false);
+
+		if (millis < 0) {
+			millis = stf.parseLocalTime(parts.get(i)).getMillisOfDay();
+		}
+
+		return millis;
+
+	}
+
+	/**
+	 * Directions the tracking task prints. Reusing these keeps every event
+	 * from holding its own copy.
+	 */
+	static final String[] directions = { "C", "N", "NE", "E", "SE",
+			"S", "SW", "W", "NW" };
+
+	private static String readCompass(Tokenizer parts, int i) {
+
+		for (String d : directions) {
+			if (parts.equals(i, d)) {
+				return d;
+			}
+		}
+
+		return parts.get(i);
+
 	}
 	
 	/**
@@ -109,7 +146,45 @@ public class TRCKEvent extends ReaderInterface {
 	 * @return
 	 */
 	public boolean equals(TRCKEvent e){
-		return st.equals(e.st) && num == e.num;
+		return st == e.st && num == e.num;
+	}
+
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(time);
+		out.writeInt(st);
+		out.writeInt(num);
+		out.writeInt(tisos);
+		out.writeFloat(rmsd);
+		out.writeInt(num2);
+		out.writeInt(sasos);
+		out.writeFloat(rmsd2);
+		out.writeInt(num3);
+		out.writeInt(rasos);
+		out.writeFloat(rmsd3);
+		TrialCache.writeString(out, compass);
+		out.writeDouble(x);
+		out.writeDouble(y);
+		TrialCache.writeString(out, remarks);
+	}
+
+	@Override
+	void read(ByteBuffer in) {
+		time = in.getInt();
+		st = in.getInt();
+		num = in.getInt();
+		tisos = in.getInt();
+		rmsd = in.getFloat();
+		num2 = in.getInt();
+		sasos = in.getInt();
+		rmsd2 = in.getFloat();
+		num3 = in.getInt();
+		rasos = in.getInt();
+		rmsd3 = in.getFloat();
+		compass = TrialCache.readString(in);
+		x = in.getDouble();
+		y = in.getDouble();
+		remarks = TrialCache.readString(in);
 	}
 
 }
@@ -0,0 +1,420 @@
+package com.myuplay.matb;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Holds every tracking sample of a trial in parallel arrays instead of one
+ * {@link TRCKEvent} per line. Samples are found by their row.
+ * 
+ * Tracking files are by far the largest so this keeps a trial small. A
+ * {@link TRCKEvent} is only built again when a row is printed.
+ */
+public class TRCKStore {
+
+	private int size = 0;
+
+	private int[] time = new int[0];
+	private int[] st = new int[0];
+	private int[] num = new int[0];
+	private int[] tisos = new int[0];
+	private float[] rmsd = new float[0];
+	private int[] num2 = new int[0];
+	private int[] sasos = new int[0];
+	private float[] rmsd2 = new float[0];
+	private int[] num3 = new int[0];
+	private int[] rasos = new int[0];
+	private float[] rmsd3 = new float[0];
+	private char[] compass = new char[0];
+	private double[] x = new double[0];
+	private double[] y = new double[0];
+
+	/**
+	 * Almost never used so it is only made for the first remark.
+	 */
+	private String[] remarks;
+
+	/**
+	 * Compass names by code. Starts with the directions the tracking task
+	 * prints, anything else is added as it is found.
+	 */
+	private final List<String> compassNames = new ArrayList<String>(
+			Arrays.asList(TRCKEvent.directions));
+
+	/**
+	 * Code of the centered compass, the sample is not moving.
+	 */
+	private static final char centered = 0;
+
+	/**
+	 * Copies the sample into a new row.
+	 * 
+	 * @param e
+	 * @return The row of the sample.
+	 */
+	public int add(TRCKEvent e) {
+
+		if (size == time.length) {
+			grow(Math.max(16, size * 2));
+		}
+
+		time[size] = e.time;
+		st[size] = e.st;
+		num[size] = e.num;
+		tisos[size] = e.tisos;
+		rmsd[size] = e.rmsd;
+		num2[size] = e.num2;
+		sasos[size] = e.sasos;
+		rmsd2[size] = e.rmsd2;
+		num3[size] = e.num3;
+		rasos[size] = e.rasos;
+		rmsd3[size] = e.rmsd3;
+		compass[size] = compassCode(e.compass);
+		x[size] = e.x;
+		y[size] = e.y;
+
+		if (!e.remarks.isEmpty()) {
+
+			if (remarks == null) {
+				remarks = new String[time.length];
+			}
+
+			remarks[size] = e.remarks;
+
+		}
+
+		return size++;
+
+	}
+
+	private char compassCode(String c) {
+
+		int code = compassNames.indexOf(c);
+
+		if (code < 0) {
+			code = compassNames.size();
+			compassNames.add(c);
+		}
+
+		return (char) code;
+
+	}
+
+	private void grow(int length) {
+
+		time = Arrays.copyOf(time, length);
+		st = Arrays.copyOf(st, length);
+		num = Arrays.copyOf(num, length);
+		tisos = Arrays.copyOf(tisos, length);
+		rmsd = Arrays.copyOf(rmsd, length);
+		num2 = Arrays.copyOf(num2, length);
+		sasos = Arrays.copyOf(sasos, length);
+		rmsd2 = Arrays.copyOf(rmsd2, length);
+		num3 = Arrays.copyOf(num3, length);
+		rasos = Arrays.copyOf(rasos, length);
+		rmsd3 = Arrays.copyOf(rmsd3, length);
+		compass = Arrays.copyOf(compass, length);
+		x = Arrays.copyOf(x, length);
+		y = Arrays.copyOf(y, length);
+
+		if (remarks != null) {
+			remarks = Arrays.copyOf(remarks, length);
+		}
+
+	}
+
+	/**
+	 * Drops the unused space at the end once everything is read.
+	 */
+	public void trim() {
+		if (size < time.length) {
+			grow(size);
+		}
+	}
+
+	/**
+	 * Puts the rows in time order if they are not already. Rows with the same
+	 * time keep their order.
+	 */
+	public void sort() {
+
+		boolean sorted = true;
+
+		for (int i = 1; i < size && sorted; ++i) {
+			sorted = time[i - 1] <= time[i];
+		}
+
+		if (sorted) {
+			return;
+		}
+
+		Integer[] order = new Integer[size];
+
+		for (int i = 0; i < size; ++i) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, new Comparator<Integer>() { // Stable.
+
+					@Override
+					public int compare(Integer a, Integer b) {
+						return Integer.compare(time[a], time[b]);
+					}
+
+				});
+
+		TRCKStore tmp = new TRCKStore();
+		tmp.compassNames.clear();
+		tmp.compassNames.addAll(compassNames);
+
+		for (Integer row : order) {
+			tmp.add(get(row));
+		}
+
+		size = tmp.size;
+		time = tmp.time;
+		st = tmp.st;
+		num = tmp.num;
+		tisos = tmp.tisos;
+		rmsd = tmp.rmsd;
+		num2 = tmp.num2;
+		sasos = tmp.sasos;
+		rmsd2 = tmp.rmsd2;
+		num3 = tmp.num3;
+		rasos = tmp.rasos;
+		rmsd3 = tmp.rmsd3;
+		compass = tmp.compass;
+		x = tmp.x;
+		y = tmp.y;
+		remarks = tmp.remarks;
+
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int time(int row) {
+		return time[row];
+	}
+
+	public double x(int row) {
+		return x[row];
+	}
+
+	public double y(int row) {
+		return y[row];
+	}
+
+	public String compass(int row) {
+		return compassNames.get(compass[row]);
+	}
+
+	/**
+	 * Same as {@code compass(row).equals("C")}.
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public boolean isCentered(int row) {
+		return compass[row] == centered;
+	}
+
+	/**
+	 * Builds the event of a row.
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public TRCKEvent get(int row) {
+
+		TRCKEvent e = new TRCKEvent();
+
+		e.time = time[row];
+		e.st = st[row];
+		e.num = num[row];
+		e.tisos = tisos[row];
+		e.rmsd = rmsd[row];
+		e.num2 = num2[row];
+		e.sasos = sasos[row];
+		e.rmsd2 = rmsd2[row];
+		e.num3 = num3[row];
+		e.rasos = rasos[row];
+		e.rmsd3 = rmsd3[row];
+		e.compass = compass(row);
+		e.x = x[row];
+		e.y = y[row];
+
+		if (remarks != null && remarks[row] != null) {
+			e.remarks = remarks[row];
+		}
+
+		return e;
+
+	}
+
+	/**
+	 * Prints a row the same as {@link TRCKEvent#toString()}.
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public String toString(int row) {
+		return appendTo(new StringBuilder(), row).toString();
+	}
+
+	/**
+	 * Writes a row the same as {@link TRCKEvent#appendTo(StringBuilder)}
+	 * without building the event.
+	 * 
+	 * @param sb
+	 * @param row
+	 * @return sb
+	 */
+	public StringBuilder appendTo(StringBuilder sb, int row) {
+
+		ReaderInterface.appendClock(sb.append('"'), st[row], false, false)
+				.append("\",");
+		sb.append(num[row]).append(',').append(tisos[row]).append(",\"")
+				.append(rmsd[row]).append("\",").append(num2[row]).append(',')
+				.append(sasos[row]).append(",\"").append(rmsd2[row])
+				.append("\",").append(num3[row]).append(',').append(rasos[row])
+				.append(",\"").append(rmsd3[row]).append("\",\"")
+				.append(compass(row)).append("\",\"").append(x[row])
+				.append("\",\"").append(y[row]).append("\",\"");
+
+		if (remarks != null && remarks[row] != null) {
+			sb.append(remarks[row]);
+		}
+
+		sb.append('"');
+
+		return sb;
+
+	}
+
+	/**
+	 * Writes every row column by column for the {@link TrialCache}.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	void write(DataOutput out) throws IOException {
+
+		out.writeInt(size);
+		out.writeInt(compassNames.size());
+
+		for (String c : compassNames) {
+			TrialCache.writeString(out, c);
+		}
+
+		for (int[] column : new int[][] { time, st, num, tisos, num2, sasos,
+				num3, rasos }) {
+			for (int i = 0; i < size; ++i) {
+				out.writeInt(column[i]);
+			}
+		}
+
+		for (float[] column : new float[][] { rmsd, rmsd2, rmsd3 }) {
+			for (int i = 0; i < size; ++i) {
+				out.writeFloat(column[i]);
+			}
+		}
+
+		for (int i = 0; i < size; ++i) {
+			out.writeChar(compass[i]);
+		}
+
+		for (double[] column : new double[][] { x, y }) {
+			for (int i = 0; i < size; ++i) {
+				out.writeDouble(column[i]);
+			}
+		}
+
+		out.writeBoolean(remarks != null);
+
+		if (remarks != null) {
+			for (int i = 0; i < size; ++i) {
+				TrialCache.writeString(out, remarks[i]);
+			}
+		}
+
+	}
+
+	/**
+	 * Reads back a store written by {@link #write(DataOutput)}. Whole columns
+	 * are copied at once.
+	 * 
+	 * @param in
+	 * @return
+	 */
+	static TRCKStore read(ByteBuffer in) {
+
+		TRCKStore s = new TRCKStore();
+
+		int size = TrialCache.checkLength(in, in.getInt());
+		int names = TrialCache.checkLength(in, in.getInt());
+
+		s.compassNames.clear();
+
+		for (int i = 0; i < names; ++i) {
+			s.compassNames.add(intern(TrialCache.readString(in)));
+		}
+
+		s.grow(size);
+		s.size = size;
+
+		for (int[] column : new int[][] { s.time, s.st, s.num, s.tisos,
+				s.num2, s.sasos, s.num3, s.rasos }) {
+			in.asIntBuffer().get(column);
+			in.position(in.position() + size * 4);
+		}
+
+		for (float[] column : new float[][] { s.rmsd, s.rmsd2, s.rmsd3 }) {
+			in.asFloatBuffer().get(column);
+			in.position(in.position() + size * 4);
+		}
+
+		in.asCharBuffer().get(s.compass);
+		in.position(in.position() + size * 2);
+
+		for (double[] column : new double[][] { s.x, s.y }) {
+			in.asDoubleBuffer().get(column);
+			in.position(in.position() + size * 8);
+		}
+
+		if (in.get() != 0) {
+
+			s.remarks = new String[size];
+
+			for (int i = 0; i < size; ++i) {
+				s.remarks[i] = TrialCache.readString(in);
+			}
+
+		}
+
+		return s;
+
+	}
+
+	/**
+	 * Shares the usual direction names the same as the parser does.
+	 */
+	private static String intern(String c) {
+
+		for (String d : TRCKEvent.directions) {
+			if (d.equals(c)) {
+				return d;
+			}
+		}
+
+		return c;
+
+	}
+
+}
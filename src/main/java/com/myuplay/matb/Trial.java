@@ -5,30 +5,24 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Collections;
-
-import javafx.concurrent.Task;
-import javafx.concurrent.WorkerStateEvent;
-import javafx.event.EventHandler;
-import javafx.scene.control.ProgressBar;
-import javafx.scene.layout.VBox;
-import javafx.scene.text.Text;
+import java.util.Arrays;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
 import org.joda.time.LocalTime;
-import org.joda.time.Period;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
-import com.myuplay.matb.ECList.SuperIterator;
-
-public class Trial extends VBox {
+import com.myuplay.matb.MATBEvent.Module;
 
-	public Text title;
+/**
+ * All numerical data of a trial set. See {@link TrialView} for displaying
+ * one.
+ */
+public class Trial {
 
 	public String id;
 	public final DateTime timestamp;
-	private ProgressBar progress;
 
 	private final File[] files;
 
@@ -47,64 +41,32 @@ public class Trial extends VBox {
 	public static final String header = "\"TimeStamp\",\"Trial Name\",\"Folder\"";
 
 	/**
-	 * Contains all visual and numerical data of a trial set.
+	 * Contains all numerical data of a trial set.
 	 * 
-	 * @param name
-	 *            - Requires a trial name for display and printing.
+	 * @param id
+	 *            - Requires a trial number for display and printing. Replaced
+	 *            by the events filename when the files are read.
 	 * @param stamp
 	 *            - String version of the associated timestamp.
 	 * @param files
 	 *            - A list of associated files to parse.
-	 * @param rootWindow
-	 *            - Access to the root window for opening dialogs.
 	 * @throws ParseException
 	 */
 	public Trial(int id, String stamp, File[] files) throws ParseException {
-		super();
 
 		this.id = Integer.toString(id); // TODO Temporary fix.
 		this.files = files;
 		timestamp = tdfin.parseDateTime(stamp);
 
-		title = new Text("Trial " + id + " " + tdfout.print(timestamp));
-
-		progress = new ProgressBar();
-
-		getChildren().addAll(title, progress);
-
 	}
 
-	public Task<String> setupTask() {
-
-		TrialReader r = new TrialReader(files, this);
-		r.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
-
-			@Override
-			public void handle(WorkerStateEvent t) {
-
-				Console.log("[Parser] " + t.getSource().getValue());
-
-			}
-
-		});
-
-		r.setOnFailed(new EventHandler<WorkerStateEvent>() {
-
-			@Override
-			public void handle(WorkerStateEvent t) {
-
-				Console.log("[Parser] Failed to parse! Check logs!");
-
-				t.getSource().getException().printStackTrace();
-
-			}
-
-		});
-
-		progress.progressProperty().bind(r.progressProperty());
-
-		return r;
-
+	/**
+	 * The files that belong to this trial.
+	 * 
+	 * @return
+	 */
+	public File[] getFiles() {
+		return files;
 	}
 
 	/**
@@ -133,12 +95,33 @@ public class Trial extends VBox {
 	 * This reduces the characters required in a csv line so that it doesn't
 	 * take up as much space.
 	 * 
+	 * Removes every {@code ""} from left to right in place, the same as
+	 * {@code replaceAll("\"\"", "")}.
+	 * 
 	 * @param in
-	 * @return
+	 * @return in
 	 */
-	private String cleanCSV(String in) {
+	private static StringBuilder cleanCSV(StringBuilder in) {
+
+		int length = in.length();
+		int out = 0;
+
+		for (int i = 0; i < length; ++i) {
+
+			char c = in.charAt(i);
 
-		return in.replaceAll("\"\"", "");
+			if (c == '"' && i + 1 < length && in.charAt(i + 1) == '"') {
+				i++;
+				continue;
+			}
+
+			in.setCharAt(out++, c);
+
+		}
+
+		in.setLength(out);
+
+		return in;
 
 	}
 
@@ -184,15 +167,38 @@ public class Trial extends VBox {
 		String prepend = "\"" + tdfout.print(timestamp) + "\",\"" + id
 				+ "\",\"" + filePath + "\",";
 
+		long start = Metrics.start();
+
+		StringBuilder row = new StringBuilder(512);
+		char[] buffer = new char[512];
+
 		for (EventContainer e : events) {
-			out.append(cleanCSV(prepend + e.toString() + "\r\n"));
+
+			row.setLength(0);
+			e.appendTo(row.append(prepend)).append("\r\n");
+			cleanCSV(row);
+
+			if (buffer.length < row.length()) {
+				buffer = new char[row.length() * 2];
+			}
+
+			row.getChars(0, row.length(), buffer, 0);
+			out.write(buffer, 0, row.length());
+
 		}
 
+		Metrics.record(Metrics.Phase.WritingData, start, events.size(), 0);
+
 		return out;
 	}
 
-	public void sortData() {
-		Collections.sort(events);
+	/**
+	 * Drops the parsed events. The trial has to be read again before it can
+	 * be printed.
+	 */
+	public void release() {
+		events.clear();
+		events.trimToSize();
 	}
 
 	public static String getHeader() {
@@ -216,23 +222,27 @@ public class Trial extends VBox {
 	}
 
 	private static enum EventChange {
-		COMMSYSM("1,,,,,,,,,,,"),
-		COMMRMAN(",1,,,,,,,,,,"),
-		COMMTRCK(",,1,,,,,,,,,"),
-		SYSMCOMM(",,,1,,,,,,,,"),
-		SYSMRMAN(",,,,1,,,,,,,"),
-		SYSMTRCK(",,,,,1,,,,,,"),
-		RMANSYSM(",,,,,,1,,,,,"),
-		RMANCOMM(",,,,,,,1,,,,"),
-		RMANTRCK(",,,,,,,,1,,,"),
-		TRCKSYSM(",,,,,,,,,1,,"),
-		TRCKCOMM(",,,,,,,,,,1,"),
-		TRCKRMAN(",,,,,,,,,,,1"),
-		NOCHANGE(",,,,,,,,,,,");
-
+		COMMSYSM(Module.Communications, Module.SystemMonitoring, "1,,,,,,,,,,,"),
+		COMMRMAN(Module.Communications, Module.ResourceManagement, ",1,,,,,,,,,,"),
+		COMMTRCK(Module.Communications, Module.Tracking, ",,1,,,,,,,,,"),
+		SYSMCOMM(Module.SystemMonitoring, Module.Communications, ",,,1,,,,,,,,"),
+		SYSMRMAN(Module.SystemMonitoring, Module.ResourceManagement, ",,,,1,,,,,,,"),
+		SYSMTRCK(Module.SystemMonitoring, Module.Tracking, ",,,,,1,,,,,,"),
+		RMANSYSM(Module.ResourceManagement, Module.SystemMonitoring, ",,,,,,1,,,,,"),
+		RMANCOMM(Module.ResourceManagement, Module.Communications, ",,,,,,,1,,,,"),
+		RMANTRCK(Module.ResourceManagement, Module.Tracking, ",,,,,,,,1,,,"),
+		TRCKSYSM(Module.Tracking, Module.SystemMonitoring, ",,,,,,,,,1,,"),
+		TRCKCOMM(Module.Tracking, Module.Communications, ",,,,,,,,,,1,"),
+		TRCKRMAN(Module.Tracking, Module.ResourceManagement, ",,,,,,,,,,,1"),
+		NOCHANGE(null, null, ",,,,,,,,,,,");
+
+		private final Module from;
+		private final Module to;
 		private String out;
 
-		private EventChange(String s) {
+		private EventChange(Module from, Module to, String s) {
+			this.from = from;
+			this.to = to;
 			out = s;
 		}
 
@@ -242,69 +252,39 @@ public class Trial extends VBox {
 
 	}
 
-	private static String getDirection(String last, String current) {
-
-		if (last.equals("Communications")) {
-
-			if (current.equals("Resource Management")) {
-				return EventChange.COMMRMAN.toString();
-			} else if (current.equals("System Monitoring")) {
-				return EventChange.COMMSYSM.toString();
-			} else if (current.equals("Tracking")) {
-				return EventChange.COMMTRCK.toString();
-			}
-
-		} else if (last.equals("Resource Management")) {
-
-			if (current.equals("Communications")) {
-				return EventChange.RMANCOMM.toString();
-			} else if (current.equals("System Monitoring")) {
-				return EventChange.RMANSYSM.toString();
-			} else if (current.equals("Tracking")) {
-				return EventChange.RMANTRCK.toString();
-			}
-
-		} else if (last.equals("System Monitoring")) {
+	/**
+	 * Change between two modules by their ordinals. Staying on the same
+	 * module, including tracking to tracking, and anything with
+	 * {@link Module#Other} is no change.
+	 */
+	private static final EventChange[][] changes = new EventChange[Module.values().length][Module.values().length];
 
-			if (current.equals("Communications")) {
-				return EventChange.SYSMCOMM.toString();
-			} else if (current.equals("Resource Management")) {
-				return EventChange.SYSMRMAN.toString();
-			} else if (current.equals("Tracking")) {
-				return EventChange.SYSMTRCK.toString();
-			}
+	static {
 
-		} else if (last.equals("Tracking")) {
+		for (EventChange[] row : changes) {
+			Arrays.fill(row, EventChange.NOCHANGE);
+		}
 
-			if (current.equals("Resource Management")) {
-				return EventChange.TRCKRMAN.toString();
-			} else if (current.equals("Communications")) {
-				return EventChange.TRCKCOMM.toString();
-			} else if (current.equals("System Monitoring")) {
-				return EventChange.TRCKSYSM.toString();
-			} else if (current.equals("Tracking")) {
-				return EventChange.NOCHANGE.toString();// Special case.
+		for (EventChange c : EventChange.values()) {
+			if (c.from != null) {
+				changes[c.from.ordinal()][c.to.ordinal()] = c;
 			}
-
 		}
 
-		// Something has gone wrong.
-		// This isn't true anymore. We do checks all the time regardless of
-		// change detected.
-		// Console.log("WARNING: Statistics trasition could not be found. Directed graph may be inaccurate.");
-
-		return EventChange.NOCHANGE.toString();
+	}
 
+	private static String getDirection(Module last, Module current) {
+		return changes[last.ordinal()][current.ordinal()].toString();
 	}
 
-	private static String advGetDirection(String lastXIdle, SuperIterator it, EventContainer current) {
+	private static String advGetDirection(Module lastXIdle, boolean idle, EventContainer current) {
 
-		if (lastXIdle != null && !isIdle(it)) { // We have an event that
+		if (lastXIdle != null && !idle) { // We have an event that
 			// isn't null before us
 			// and the current event
 			// isn't null
 
-			return getDirection(lastXIdle, current.matb.event);
+			return getDirection(lastXIdle, current.matb.module);
 
 		}
 
@@ -313,7 +293,23 @@ public class Trial extends VBox {
 
 	}
 
+
 	public BufferedWriter getStats(BufferedWriter out) throws IOException {
+		return getStats(out, true);
+	}
+
+	/**
+	 * Prints the stats of every block.
+	 * 
+	 * @param out
+	 * @param precomputeIdle
+	 *            - Work out every idle before looking for blocks instead of as
+	 *            they are needed. The stats are the same either way.
+	 * @return
+	 * @throws IOException
+	 */
+	public BufferedWriter getStats(BufferedWriter out, boolean precomputeIdle)
+			throws IOException {
 
 		String absolutePath = files[0].getAbsolutePath();
 		String filePath = absolutePath.substring(0,
@@ -323,21 +319,33 @@ public class Trial extends VBox {
 		String prepend = "\"" + tdfout.print(timestamp) + "\",\"" + id
 				+ "\",\"" + filePath + "\",";
 
+		long start = Metrics.start();
+
 		//New object container for handling hard work.
 		ECList list = new ECList(events);
-		SuperIterator it = list.iterator();
+
+		Metrics.record(Metrics.Phase.BuildingECList, start, list.size(), 0);
+		start = Metrics.start();
+
+		if (precomputeIdle) {
+			precomputeIdle(list);
+		}
 
 		int blockNumber = 0;
 
-		String lastXIdle = null;
+		Module lastXIdle = null;
+
+		int position = 0;
 
-		// Go through all events.
-		while (it.hasNext()) {
+		// Go through all events. Every step takes a whole block.
+		while (position < list.size()) {
 
-			EventContainer current = it.next();
+			EventContainer current = list.get(position);
 
-			if (!current.hasMATB())
+			if (!current.hasMATB()) {
+				position++;
 				continue; // Skip rows that don't have matb.
+			}
 
 			//Increment changes.
 			blockNumber++;
@@ -346,53 +354,64 @@ public class Trial extends VBox {
 
 			//Block code.
 			//We should always consume a block.
-			Period blockTime = consumeBlock(it);
+			int end = findBlockEnd(list, position);
+			int blockTime = list.get(end).time - current.time;
 
-			if (blockTime.equals(Period.ZERO)){
-				blockTime.minusSeconds(-1); //Subtract.
-			}
+			//The block is judged by where it ends.
+			boolean idle = isIdle(list, end);
 
 			blockSection = printPeriod(blockTime) //No longer have single events.
 					+ "," + blockNumber + "," //We know the block changed.
-					+ advGetDirection(lastXIdle, it, current);
+					+ advGetDirection(lastXIdle, idle, current);
 
 			// Print formatting.
 			String ret = prepend + "\"" + ReaderInterface.printDate(current.time) + "\","
-					+ (current.hasTRCK() ? (isIdle(it) ? "Idle" : "Tracking") : current.matb.event)
+					+ (current.hasTRCK() ? (idle ? "Idle" : "Tracking") : current.matb.event)
 					+ "," + blockSection + ",";
 
 
 			out.append(ret + "\r\n");
 
 			// Special case of tracking non idle for switching.
-			if (!isIdle(it))// If not idle.
-				lastXIdle = current.matb.event;// Track non idle.
+			if (!idle)// If not idle.
+				lastXIdle = current.matb.module;// Track non idle.
+
+			position = end + 1;
 
 		}
 
+		Metrics.record(Metrics.Phase.Stats, start, blockNumber, 0);
+
 		return out;
 	}
 
 	/**
-	 * New block consuming code.
-	 * @param it
-	 * @return
+	 * Finds where the block starting at start ends. Walks forward one event
+	 * at a time looking at most two events ahead, or two tracking events
+	 * ahead for tracking blocks.
+	 * 
+	 * @param list
+	 * @param start
+	 *            - First event of the block.
+	 * @return The last event in the block.
 	 */
-	private static Period consumeBlock(SuperIterator it){
+	private static int findBlockEnd(ECList list, int start){
 
-		EventContainer start = it.peek(0); //First block that is considered part of the block.
+		EventContainer first = list.get(start); //First block that is considered part of the block.
 
-		boolean isIdle = isIdle(it); //Check if start is idle.
+		boolean isIdle = isIdle(list, start); //Check if start is idle.
 
-		while (it.hasNext()){
+		int end = start;
 
-			EventContainer current = it.peek();
+		while (end + 1 < list.size()){
 
-			if (!start.equals(current.matb)){ //The events are different.
+			EventContainer next = list.get(end + 1);
 
-				if (it.has(1) && isIdle(it.cloneAt(1))){ //Is the next event idle.
+			if (first.matb.module != next.matb.module){ //The events are different.
 
-					if (it.has(2) && isIdle(it.cloneAt(2))){ //Is the one after the next idle?
+				if (isIdle(list, end + 1)){ //Is the next event idle.
+
+					if (end + 2 < list.size() && isIdle(list, end + 2)){ //Is the one after the next idle?
 						break;
 					}
 
@@ -402,24 +421,27 @@ public class Trial extends VBox {
 					break;
 				}
 
-			} else if (current.hasTRCK()){//Special logic for tracking events.
+			} else if (next.hasTRCK()){//Special logic for tracking events.
 
 				if (isIdle){ //Is this block idle?
 
 					//This will get hit if both events are tracking and the block is idle.
-					if (!isIdle(it.cloneAt(1))){
+					if (!isIdle(list, end + 1)){
 						//The next event is tracking. Stop the idle block.
 						break;
 					}
 
 				} else { //Not idle
 
-					//This will get hit only if it[0] and it[1] are tracking.
-					//We don't know if it[2] is tracking so do a cloneAtTRCK instead.
-					//The alternative is that it[2] is not a tracking event.
-					if (isIdle(it.cloneAt(1)) && (
-							(it.hasTRCK(2) && isIdle(it.cloneAtTRCK(2)))
-							|| (it.has(2) && !it.peek(2).equals("Tracking")) ) ){
+					//The second tracking event after the last one we passed.
+					int track = list.countTRCKBefore(end + 1) + 1;
+
+					//This will get hit only if end and end + 1 are tracking.
+					//We don't know if end + 2 is tracking so look at the tracking events instead.
+					//The alternative is that end + 2 is not a tracking event.
+					if (isIdle(list, end + 1) && (
+							(track < list.getTRCKCount() && isIdle(list, list.getTRCKPosition(track)))
+							|| (end + 2 < list.size() && list.get(end + 2).matb.module != Module.Tracking) ) ){
 						//The next 2 events are idle so we should leave the block.
 						break;
 					}
@@ -428,92 +450,163 @@ public class Trial extends VBox {
 
 			}
 
-			it.next(); //Increment.
+			end++;
 
 		}
 
-		return new Period(start.time, it.peek(0).time);
+		return end;
 
 	}
 
+	/**
+	 * Local time of day at instant -61200000, midnight in mountain time.
+	 */
+	private static final int periodBase = new LocalTime(-61200000L).getMillisOfDay();
 
-	private static String printPeriod(Period p) {
-		return ReaderInterface.printDate(new LocalTime(-61200000).plus(p));//Fix the weird 7 hour thing.
+	private static String printPeriod(int p) {
+		//Fix the weird 7 hour thing.
+		return ReaderInterface.printDate((periodBase + p) % DateTimeConstants.MILLIS_PER_DAY);
 	}
 
 	/**
 	 * Calculates the total deviation between a, b, and c.
 	 * 
+	 * @param s
+	 *            - Store holding the rows.
 	 * @param a
 	 * @param b
 	 * @param c
 	 * @return
 	 */
-	private static double getDeviation(TRCKEvent a, TRCKEvent b, TRCKEvent c) {
-		double total = Math.abs(a.x - b.x);
-		total += Math.abs(b.x - c.x);
-		total += Math.abs(a.y - b.y);
-		total += Math.abs(b.y - c.y);
+	private static double getDeviation(TRCKStore s, int a, int b, int c) {
+		double total = Math.abs(s.x(a) - s.x(b));
+		total += Math.abs(s.x(b) - s.x(c));
+		total += Math.abs(s.y(a) - s.y(b));
+		total += Math.abs(s.y(b) - s.y(c));
 		return total;
 	}
 
 	/**
-	 * Tests the current position of an iteratior for idle.
-	 * Uses 4 different tests depending on location and how many track
-	 * events are nearby.
+	 * Tests an event for idle. Uses 4 different tests depending on location
+	 * and how many track events are nearby. Results are recorded in the list.
 	 * 
-	 * More accurate than the other isIdle.
-	 * @param it
+	 * @param list
+	 * @param position
 	 * @return
 	 */
-	private static boolean isIdle(ECList.SuperIterator it){
+	private static boolean isIdle(ECList list, int position){
 
 		Boolean val;
-		if ( (val = it.isIdle()) != null){
+		if ( (val = list.isIdle(position)) != null){
 			return val.booleanValue();
 		}
 
 		boolean tmp;
 
-		if (!it.peek(0).hasTRCK()){ //Has to be a tracking event to be idle.
-			it.setIdle(false);
-			return false;	
-			//Need at least 3 events for comparison
-		} else if (checkTime(it, -1, 0, 1)) { //Prefer this first.
-			tmp = getDeviation(it.peekTRCK(-1), it.peekTRCK(0), it.peekTRCK(1)) <= 16 * 2;
-		} else if (checkTime(it, 0, 1, 2)){ //Maybe we don't have a previous event. Look ahead instead.
-			tmp = getDeviation(it.peekTRCK(0), it.peekTRCK(1), it.peekTRCK(2)) <= 16 * 2;
-		} else if (checkTime(it, -2, -1, 0)){ //Don't have events in front? Check behind.
-			tmp = getDeviation(it.peekTRCK(-2), it.peekTRCK(-1), it.peekTRCK(0)) <= 16 * 2;
+		if (!list.get(position).hasTRCK()){ //Has to be a tracking event to be idle.
+			tmp = false;
 		} else {
-			tmp = isIdle(it.peek(0));
+
+			TRCKStore s = list.getTRCK();
+			int i = list.countTRCKBefore(position); //Which tracking event this is.
+
+			//Need at least 3 events for comparison
+			if (checkTime(list, i - 1, i, i + 1)) { //Prefer this first.
+				tmp = getDeviation(s, list.getTRCKRow(i - 1), list.getTRCKRow(i), list.getTRCKRow(i + 1)) <= 16 * 2;
+			} else if (checkTime(list, i, i + 1, i + 2)){ //Maybe we don't have a previous event. Look ahead instead.
+				tmp = getDeviation(s, list.getTRCKRow(i), list.getTRCKRow(i + 1), list.getTRCKRow(i + 2)) <= 16 * 2;
+			} else if (checkTime(list, i - 2, i - 1, i)){ //Don't have events in front? Check behind.
+				tmp = getDeviation(s, list.getTRCKRow(i - 2), list.getTRCKRow(i - 1), list.getTRCKRow(i)) <= 16 * 2;
+			} else {
+				tmp = s.isCentered(list.getTRCKRow(i));
+			}
+
 		}
 
-		it.setIdle(tmp);
+		list.setIdle(position, tmp);
 		return tmp;
 	}
 
-	private static boolean isIdle(EventContainer current) {
-		return (current.hasTRCK() && current.trck.compass.equals("C"));
-	}
+	/**
+	 * Same result as {@link #isIdle(ECList, int)} for every position
+	 * but done in one pass over the tracking samples.
+	 * 
+	 * @param list
+	 */
+	private static void precomputeIdle(ECList list) {
 
-	private static boolean checkTime(SuperIterator it, int ... offsets){
+		for (int i = 0; i < list.size(); ++i) {
+			list.setIdle(i, false); // Only tracking can be idle.
+		}
+
+		int n = list.getTRCKCount();
+
+		if (n == 0) {
+			return;
+		}
+
+		TRCKStore s = list.getTRCK();
+
+		int[] rows = new int[n];
+		boolean[] close = new boolean[n]; // Within the time of the next one.
+
+		for (int i = 0; i < n; ++i) {
+			rows[i] = list.getTRCKRow(i);
+		}
 
-		for (int offset : offsets){
-			if (!it.hasTRCK(offset))
-				return false; //Missing a position.
+		for (int i = 0; i + 1 < n; ++i) {
+			int diff = s.time(rows[i + 1]) - s.time(rows[i]);
+			close[i] = ReaderInterface.secondsOf(diff) <= 10;
 		}
 
-		for (int i = 0; i + 1 < offsets.length; ++i){
+		for (int i = 0; i < n; ++i) {
 
-			Period diff = new Period(it.peekTRCK(offsets[i]).time, it.peekTRCK(offsets[i + 1]).time);
+			int a; // First of the three samples to compare.
 
-			if (diff.getSeconds() > 10)
-				return false; //An event is outside of the allowed time.
+			if (i >= 1 && i + 1 < n && close[i - 1] && close[i]) {
+				a = i - 1;
+			} else if (i + 2 < n && close[i] && close[i + 1]) {
+				a = i;
+			} else if (i >= 2 && close[i - 2] && close[i - 1]) {
+				a = i - 2;
+			} else {
+				list.setIdle(list.getTRCKPosition(i), s.isCentered(rows[i]));
+				continue;
+			}
+
+			list.setIdle(list.getTRCKPosition(i),
+					getDeviation(s, rows[a], rows[a + 1], rows[a + 2]) <= 16 * 2);
 
 		}
 
-		return true;
+	}
+
+	/**
+	 * Checks that three tracking events exist and are each within ten seconds
+	 * of the one before. Takes them one by one so the stats walk does not
+	 * allocate.
+	 * 
+	 * @param list
+	 * @param a
+	 * @param b
+	 * @param c
+	 *            - Which tracking events, in order.
+	 * @return
+	 */
+	private static boolean checkTime(ECList list, int a, int b, int c){
+
+		if (a < 0 || c >= list.getTRCKCount())
+			return false; //Missing a position.
+
+		TRCKStore s = list.getTRCK();
+
+		int ta = s.time(list.getTRCKRow(a));
+		int tb = s.time(list.getTRCKRow(b));
+		int tc = s.time(list.getTRCKRow(c));
+
+		//Every event has to be within the allowed time.
+		return ReaderInterface.secondsOf(tb - ta) <= 10
+				&& ReaderInterface.secondsOf(tc - tb) <= 10;
 
 	}
 
@@ -0,0 +1,514 @@
+package com.myuplay.matb;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps parsed trials on disk so the text files only have to be parsed once.
+ *
+ * Every trial is saved in a binary file in a {@value #directory} folder beside
+ * its files. The file starts with the charset of {@link LogReader} and the
+ * path, size and modification time of every file of the trial and is only
+ * used while all of them still match.
+ * Otherwise the trial is parsed again and the cache replaced.
+ *
+ * Loading maps the cache into memory and copies the tracking columns out in
+ * whole blocks. The file ends with a checksum of everything after the header
+ * so a damaged cache is parsed again instead of used. The
+ * {@link ParseDiagnostics} of the files are kept with the events so a trial
+ * from its cache reports and is limited the same as a parsed one.
+ *
+ * Off unless started with {@code -Dmatb.cache=true}, since it writes beside
+ * the files it reads.
+ */
+public class TrialCache {
+
+	/**
+	 * Name of the folder the caches are kept in.
+	 */
+	public static final String directory = ".matbcache";
+
+	private static final int magic = 0x4D415442; // "MATB"
+
+	/**
+	 * Has to change whenever the layout or what the parser reads changes so
+	 * old caches are never used.
+	 */
+	private static final int version = 3;
+
+	private static final byte hasMATB = 1;
+	private static final byte hasCOMM = 2;
+	private static final byte hasRMAN = 4;
+	private static final byte hasSYSM = 8;
+	private static final byte hasTRCK = 16;
+	private static final byte hasWRS = 32;
+
+	private static volatile boolean enabled = Boolean.getBoolean("matb.cache");
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		TrialCache.enabled = enabled;
+	}
+
+	/**
+	 * Where the cache of a trial is kept.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static File getFile(Trial t) {
+
+		File[] files = t.getFiles();
+
+		return new File(new File(files[0].getAbsoluteFile().getParentFile(),
+				directory), Trial.tdfin.print(t.timestamp) + ".bin");
+
+	}
+
+	/**
+	 * Fills in the trial from its cache.
+	 *
+	 * @param t
+	 *            - A trial that has not been read yet.
+	 * @return The diagnostics of the files from when they were parsed or null
+	 *         if there is no cache or it is out of date. The trial is left
+	 *         untouched when null.
+	 */
+	public static List<ParseDiagnostics> load(Trial t) {
+
+		long begin = Metrics.start();
+
+		File f = getFile(t);
+
+		if (!f.isFile()) {
+			return null;
+		}
+
+		try {
+
+			long start;
+
+			// The header is checked before mapping so an old cache is never
+			// mapped while it is being replaced.
+			DataInputStream in = new DataInputStream(new FileInputStream(f));
+
+			try {
+
+				if (in.readInt() != magic || in.readInt() != version) {
+					return null;
+				}
+
+				byte[] header = new byte[in.readInt()];
+				in.readFully(header);
+
+				if (!matches(t.getFiles(), new DataInputStream(
+						new ByteArrayInputStream(header)))) {
+					return null;
+				}
+
+				start = 12 + header.length;
+
+			} finally {
+				in.close();
+			}
+
+			ByteBuffer buffer;
+			RandomAccessFile file = new RandomAccessFile(f, "r");
+
+			try {
+				FileChannel channel = file.getChannel();
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						channel.size() - start);
+			} finally {
+				file.close();
+			}
+
+			int end = buffer.limit() - 8;
+
+			if (end < 0 || buffer.getLong(end) != checksum(buffer, end)) {
+				Console.log("Ignoring a broken cache for Trial " + t.id);
+				return null;
+			}
+
+			buffer.limit(end);
+
+			List<ParseDiagnostics> diagnostics = read(t, buffer);
+
+			Metrics.record(Metrics.Phase.LoadingCache, begin, t.events.size(),
+					f.length());
+
+			return diagnostics;
+
+		} catch (IOException e) {
+			Console.log("Could not read the cache of Trial " + t.id + ": "
+					+ e.getMessage());
+		} catch (RuntimeException e) {
+			Console.log("Ignoring a broken cache for Trial " + t.id);
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Saves a trial that was just parsed. Failing to write the cache never
+	 * stops the trial from being used so problems are only logged.
+	 *
+	 * @param t
+	 * @param id
+	 *            - The events filename found in the files or null. The trial
+	 *            keeps its number when there is none.
+	 * @param diagnostics
+	 *            - What happened to the lines of each file.
+	 */
+	public static void save(Trial t, String id,
+			List<ParseDiagnostics> diagnostics) {
+
+		long begin = Metrics.start();
+
+		File f = getFile(t);
+		File tmp = null;
+
+		try {
+
+			File dir = f.getParentFile();
+
+			if (!dir.isDirectory() && !dir.mkdirs()) {
+				throw new IOException("Could not create " + dir);
+			}
+
+			ByteArrayOutputStream header = new ByteArrayOutputStream();
+			DataOutputStream h = new DataOutputStream(header);
+
+			h.writeUTF(LogReader.getCharset().name());
+			h.writeInt(t.getFiles().length);
+
+			for (File file : t.getFiles()) {
+				h.writeUTF(file.getAbsolutePath());
+				h.writeLong(file.length());
+				h.writeLong(file.lastModified());
+			}
+
+			h.close();
+
+			tmp = File.createTempFile(f.getName(), ".tmp", dir);
+
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+
+			try {
+
+				out.writeInt(magic);
+				out.writeInt(version);
+				out.writeInt(header.size());
+				header.writeTo(out);
+
+				CRC32 crc = new CRC32();
+				DataOutputStream body = new DataOutputStream(
+						new CheckedOutputStream(out, crc));
+
+				write(t, id, diagnostics, body);
+				body.flush();
+
+				out.writeLong(crc.getValue());
+
+			} finally {
+				out.close();
+			}
+
+			Files.move(tmp.toPath(), f.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+
+			Metrics.record(Metrics.Phase.SavingCache, begin, t.events.size(),
+					f.length());
+
+		} catch (IOException e) {
+
+			Console.log("Could not cache Trial " + t.id + ": "
+					+ e.getMessage());
+
+			if (tmp != null) {
+				tmp.delete();
+			}
+
+		}
+
+	}
+
+	/**
+	 * CRC32 of the first length bytes. Read in blocks since the buffer can
+	 * not be handed to the checksum directly.
+	 */
+	private static long checksum(ByteBuffer buffer, int length) {
+
+		CRC32 crc = new CRC32();
+		byte[] block = new byte[1 << 16];
+
+		ByteBuffer in = buffer.duplicate();
+		in.position(0);
+		in.limit(length);
+
+		while (in.hasRemaining()) {
+			int n = Math.min(block.length, in.remaining());
+			in.get(block, 0, n);
+			crc.update(block, 0, n);
+		}
+
+		return crc.getValue();
+
+	}
+
+	private static boolean matches(File[] files, DataInputStream in)
+			throws IOException {
+
+		if (!in.readUTF().equals(LogReader.getCharset().name())
+				|| in.readInt() != files.length) {
+			return false;
+		}
+
+		for (File file : files) {
+
+			if (!in.readUTF().equals(file.getAbsolutePath())
+					|| in.readLong() != file.length()
+					|| in.readLong() != file.lastModified()) {
+				return false;
+			}
+
+		}
+
+		return true;
+
+	}
+
+	private static void write(Trial t, String id,
+			List<ParseDiagnostics> diagnostics, DataOutput out)
+			throws IOException {
+
+		writeString(out, id);
+
+		out.writeInt(diagnostics.size());
+
+		for (ParseDiagnostics d : diagnostics) {
+			d.write(out);
+		}
+
+		List<TRCKStore> stores = new ArrayList<TRCKStore>();
+		Map<TRCKStore, Integer> index = new IdentityHashMap<TRCKStore, Integer>();
+
+		for (EventContainer e : t.events) {
+			if (e.hasTRCK() && !index.containsKey(e.trck)) {
+				index.put(e.trck, stores.size());
+				stores.add(e.trck);
+			}
+		}
+
+		out.writeInt(stores.size());
+
+		for (TRCKStore s : stores) {
+			s.write(out);
+		}
+
+		out.writeInt(t.events.size());
+
+		for (EventContainer e : t.events) {
+
+			byte flags = 0;
+
+			if (e.hasMATB()) {
+				flags |= hasMATB;
+			}
+			if (e.hasCOMM()) {
+				flags |= hasCOMM;
+			}
+			if (e.hasRMAN()) {
+				flags |= hasRMAN;
+			}
+			if (e.hasSYSM()) {
+				flags |= hasSYSM;
+			}
+			if (e.hasTRCK()) {
+				flags |= hasTRCK;
+			}
+			if (e.hasWRS()) {
+				flags |= hasWRS;
+			}
+
+			out.writeInt(e.time);
+			out.writeByte(flags);
+
+			if (e.hasMATB()) {
+				e.matb.write(out);
+			}
+			if (e.hasCOMM()) {
+				e.comm.write(out);
+			}
+			if (e.hasRMAN()) {
+				e.rman.write(out);
+			}
+			if (e.hasSYSM()) {
+				e.sysm.write(out);
+			}
+			if (e.hasTRCK()) {
+				out.writeInt(index.get(e.trck));
+				out.writeInt(e.trckRow);
+			}
+			if (e.hasWRS()) {
+				e.wrs.write(out);
+			}
+
+		}
+
+	}
+
+	private static List<ParseDiagnostics> read(Trial t, ByteBuffer in) {
+
+		String id = readString(in);
+
+		int files = checkLength(in, in.getInt());
+		List<ParseDiagnostics> diagnostics = new ArrayList<ParseDiagnostics>(files);
+
+		for (int i = 0; i < files; ++i) {
+			diagnostics.add(ParseDiagnostics.read(in));
+		}
+
+		TRCKStore[] stores = new TRCKStore[in.getInt()];
+
+		for (int i = 0; i < stores.length; ++i) {
+			stores[i] = TRCKStore.read(in);
+		}
+
+		int count = checkLength(in, in.getInt());
+		List<EventContainer> events = new ArrayList<EventContainer>(count);
+
+		for (int i = 0; i < count; ++i) {
+
+			EventContainer e = new EventContainer(in.getInt());
+			byte flags = in.get();
+
+			if ((flags & hasMATB) != 0) {
+				e.matb = new MATBEvent();
+				e.matb.read(in);
+			}
+			if ((flags & hasCOMM) != 0) {
+				e.comm = new COMMEvent();
+				e.comm.read(in);
+			}
+			if ((flags & hasRMAN) != 0) {
+				e.rman = new RMANEvent();
+				e.rman.read(in);
+			}
+			if ((flags & hasSYSM) != 0) {
+				e.sysm = new SYSMEvent();
+				e.sysm.read(in);
+			}
+			if ((flags & hasTRCK) != 0) {
+				e.trck = stores[in.getInt()];
+				e.trckRow = in.getInt();
+			}
+			if ((flags & hasWRS) != 0) {
+				e.wrs = new WRSEvent();
+				e.wrs.read(in);
+			}
+
+			events.add(e);
+
+		}
+
+		// Only touched once everything is read.
+		if (id != null) {
+			t.id = id;
+		}
+
+		t.events.addAll(events);
+
+		return diagnostics;
+
+	}
+
+	/**
+	 * Writes a string that may be null.
+	 *
+	 * @param out
+	 * @param s
+	 * @throws IOException
+	 */
+	static void writeString(DataOutput out, String s) throws IOException {
+
+		if (s == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		out.writeInt(s.length());
+		out.writeChars(s);
+
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutput, String)}.
+	 *
+	 * @param in
+	 * @return
+	 */
+	static String readString(ByteBuffer in) {
+
+		int length = in.getInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		checkLength(in, length);
+
+		char[] c = new char[length];
+
+		for (int i = 0; i < length; ++i) {
+			c[i] = in.getChar();
+		}
+
+		return new String(c);
+
+	}
+
+	/**
+	 * Stops a broken cache from asking for more than the file holds.
+	 *
+	 * @param in
+	 * @param length
+	 *            - Number of things that each take at least a byte.
+	 * @return length
+	 */
+	static int checkLength(ByteBuffer in, int length) {
+
+		if (length < 0 || length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+
+		return length;
+
+	}
+
+}
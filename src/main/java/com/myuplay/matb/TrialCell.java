@@ -0,0 +1,65 @@
+package com.myuplay.matb;
+
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TreeCell;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+
+/**
+ * Draws a row of the file tree. Folders are shown by name and trials by their
+ * title and parsing progress.
+ * 
+ * Only the rows on screen have cells so the nodes are shared between all
+ * trials instead of every trial having its own.
+ */
+public class TrialCell extends TreeCell<Object> {
+
+	private final Text title = new Text();
+	private final ProgressBar progress = new ProgressBar();
+	private final VBox box = new VBox();
+
+	public TrialCell() {
+		super();
+
+		box.getChildren().addAll(title, progress);
+
+	}
+
+	@Override
+	protected void updateItem(Object item, boolean empty) {
+		super.updateItem(item, empty);
+
+		title.textProperty().unbind();
+		progress.progressProperty().unbind();
+
+		if (empty || item == null) {
+
+			setText(null);
+			setGraphic(null);
+
+		} else if (item instanceof TrialView) {
+
+			TrialView view = (TrialView) item;
+
+			title.textProperty().bind(view.titleProperty());
+
+			if (view.getTask() != null) {
+				progress.progressProperty().bind(
+						view.getTask().progressProperty());
+			} else {
+				progress.setProgress(0);
+			}
+
+			setText(null);
+			setGraphic(box);
+
+		} else {
+
+			setText(item.toString());
+			setGraphic(null);
+
+		}
+
+	}
+
+}
@@ -0,0 +1,676 @@
+package com.myuplay.matb;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Reads all files of a trial into its events.
+ * 
+ * Every file of the trial is parsed on its own into a time sorted stream. The
+ * streams are then merged into the trial in time order.
+ * 
+ * This has no ties to JavaFX so it can be used without the toolkit. See
+ * {@link TrialReader} for running it as a task.
+ * 
+ * Returns status message when finished.
+ * 
+ * @author Tyler
+ * 
+ */
+public class TrialParser implements Callable<String> {
+
+	/**
+	 * Shared by all trials for parsing single files. File tasks never wait on
+	 * anything so trials can safely block on them.
+	 */
+	private static final ExecutorService filePool = createPool("File-Parser",
+			Runtime.getRuntime().availableProcessors());
+
+	private static final Comparator<ReaderInterface> timeOrder = new Comparator<ReaderInterface>() {
+
+		@Override
+		public int compare(ReaderInterface a, ReaderInterface b) {
+			return Integer.compare(a.time, b.time);
+		}
+
+	};
+
+	/**
+	 * The type of file and how its events are matched to containers.
+	 */
+	private static enum Module {
+
+		MATB {
+			ReaderInterface create() {
+				return new MATBEvent();
+			}
+
+			void attach(EventSlot slot, ModuleStream s, int i) {
+				slot.getMATB().matb = (MATBEvent) s.events.get(i);
+			}
+		},
+		COMM {
+			ReaderInterface create() {
+				return new COMMEvent();
+			}
+
+			void attach(EventSlot slot, ModuleStream s, int i) {
+				slot.get(MATBEvent.Module.Communications).comm = (COMMEvent) s.events.get(i);
+			}
+		},
+		SYSM {
+			ReaderInterface create() {
+				return new SYSMEvent();
+			}
+
+			void attach(EventSlot slot, ModuleStream s, int i) {
+				slot.get().sysm = (SYSMEvent) s.events.get(i);
+			}
+		},
+		TRCK {
+			ReaderInterface create() {
+				return new TRCKEvent();
+			}
+
+			@Override
+			void read(ModuleStream s, String line) throws ParseException {
+
+				if (s.sample == null) {
+					s.sample = (TRCKEvent) create();
+					s.trck = new TRCKStore();
+				}
+
+				s.sample.parse(line);
+				s.trck.add(s.sample);
+
+			}
+
+			void attach(EventSlot slot, ModuleStream s, int i) {
+				EventContainer c = slot.get(MATBEvent.Module.Tracking);
+				c.trck = s.trck;
+				c.trckRow = i;
+			}
+		},
+		RMAN {
+			ReaderInterface create() {
+				return new RMANEvent();
+			}
+
+			void attach(EventSlot slot, ModuleStream s, int i) {
+				slot.get().rman = (RMANEvent) s.events.get(i);
+			}
+		},
+		WRS {
+			ReaderInterface create() {
+				return new WRSEvent();
+			}
+
+			void attach(EventSlot slot, ModuleStream s, int i) {
+				slot.get().wrs = (WRSEvent) s.events.get(i);
+			}
+		};
+
+		abstract ReaderInterface create();
+
+		/**
+		 * Parses a line into the stream.
+		 */
+		void read(ModuleStream s, String line) throws ParseException {
+			ReaderInterface event = create();
+			event.parse(line);
+			s.events.add(event);
+		}
+
+		/**
+		 * Matches event i of the stream to a container.
+		 */
+		abstract void attach(EventSlot slot, ModuleStream s, int i);
+
+		/**
+		 * Finds the module from the file name.
+		 * 
+		 * @param f
+		 * @return The module or null if the file is not a module file.
+		 */
+		static Module of(File f) {
+
+			for (Module m : values()) {
+				if (f.getName().startsWith(m.name())) {
+					return m;
+				}
+			}
+
+			return null;
+
+		}
+
+	}
+
+	/**
+	 * All events of one file sorted by time.
+	 */
+	private static class ModuleStream {
+
+		private final Module module;
+		private final List<ReaderInterface> events = new ArrayList<ReaderInterface>();
+		private String id;
+
+		private final ParseDiagnostics diagnostics;
+
+		/**
+		 * Tracking samples are kept here instead of in events. The sample is
+		 * reused for every line.
+		 */
+		private TRCKStore trck;
+		private TRCKEvent sample;
+
+		/**
+		 * Position of the next event to merge.
+		 */
+		private int pos = 0;
+
+		private ModuleStream(Module module, File f) {
+			this.module = module;
+			diagnostics = new ParseDiagnostics(f);
+		}
+
+		private int size() {
+			return trck != null ? trck.size() : events.size();
+		}
+
+		private int head() {
+			return trck != null ? trck.time(pos) : events.get(pos).time;
+		}
+
+		private boolean hasNext() {
+			return pos < size();
+		}
+
+	}
+
+	/**
+	 * Creates a pool for parsing trials with a fixed number of workers.
+	 * 
+	 * @param workers
+	 *            - Number of trials that can be parsed at once.
+	 * @return
+	 */
+	public static ExecutorService createExecutor(int workers) {
+		return createPool("Parser", workers);
+	}
+
+	/**
+	 * The workers are daemon threads and time out when there is nothing to do
+	 * so the pool never needs to be shut down.
+	 */
+	static ExecutorService createPool(final String name, int workers) {
+
+		final AtomicInteger count = new AtomicInteger();
+
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 5,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, name + "-"
+								+ count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+
+				});
+
+		pool.allowCoreThreadTimeOut(true);
+
+		return pool;
+
+	}
+
+	private final File[] files;
+	private final List<EventContainer> events;
+
+	private final Trial t;
+
+	private volatile List<ParseDiagnostics> diagnostics = Collections.emptyList();
+
+	public TrialParser(Trial trial) {
+		t = trial;
+		files = t.getFiles();
+		events = t.events;
+	}
+
+	/**
+	 * What happened to the lines of each file, in the same order as the
+	 * files. Empty until the files or the cache are read.
+	 * 
+	 * @return
+	 */
+	public List<ParseDiagnostics> getDiagnostics() {
+		return diagnostics;
+	}
+
+	/**
+	 * Called as the parser moves through its steps. Does nothing by default.
+	 * 
+	 * @param message
+	 *            - What the parser is doing.
+	 * @param percent
+	 *            - How much is done out of 100.
+	 */
+	protected void updateProgress(String message, int percent) {
+	}
+
+	/**
+	 * Checked between lines and steps. The parser stops early when this
+	 * returns true. Never cancelled by default.
+	 * 
+	 * @return
+	 */
+	public boolean isCancelled() {
+		return false;
+	}
+
+	private ModuleStream readFile(File f) throws IOException, ParseException {
+
+		ModuleStream stream = new ModuleStream(Module.of(f), f);
+
+		if (f.getName().endsWith("csv"))
+			return stream; // Skip csv files. It breaks things.
+
+		long start = Metrics.start();
+
+		LogReader in = new LogReader(f);
+		ParseDiagnostics diagnostics = stream.diagnostics;
+
+		try {
+
+			while (in.next() && !isCancelled()) {
+
+				if (in.isComment()) {
+
+					if (stream.id == null && in.contains("Events Filename")) {
+						stream.id = in.line().split(":\\s*")[1].trim();
+					}
+
+					continue;
+				}
+
+				if (stream.module == null) {
+					continue; // Not a file we know how to read.
+				}
+
+				String line = in.line();
+
+				try {
+
+					stream.module.read(stream, line);
+					diagnostics.parsed();
+					continue;
+
+				} catch (ParseException e) {
+					// We can handle files that are poorly parsed by skipping
+					// lines.
+					diagnostics.skipped(in.lineNumber(), line, e);
+				} catch (Exception e) {
+					diagnostics.failed(in.lineNumber(), line, e);
+				}
+
+				if (diagnostics.isOverLimit()) {
+					throw tooManyBadLines(diagnostics, in.lineNumber());
+				}
+
+			}
+
+		} finally {
+
+			in.close();
+
+		}
+
+		Metrics.record(Metrics.Phase.ReadingFiles, start, in.lineNumber(),
+				f.length());
+		start = Metrics.start();
+
+		if (stream.trck != null) {
+			stream.trck.sort();
+			stream.trck.trim();
+		}
+
+		// Files are almost always in order already.
+		for (int i = 1; i < stream.events.size(); ++i) {
+			if (timeOrder.compare(stream.events.get(i - 1), stream.events.get(i)) > 0) {
+				Collections.sort(stream.events, timeOrder); // Stable.
+				break;
+			}
+		}
+
+		Metrics.record(Metrics.Phase.Sorting, start, stream.size(), 0);
+
+		return stream;
+
+	}
+
+	private static ParseException tooManyBadLines(ParseDiagnostics d, int line) {
+		return new ParseException(d.file.getName() + " has more than "
+				+ ParseDiagnostics.getMaxBadLines()
+				+ " lines that could not be read. " + d, line);
+	}
+
+	/**
+	 * Keeps the diagnostics of the files and logs the ones with bad lines.
+	 */
+	private void report(List<ParseDiagnostics> list) {
+
+		boolean failed = false;
+
+		for (ParseDiagnostics d : list) {
+			failed |= d.getFailed() > 0;
+		}
+
+		diagnostics = Collections.unmodifiableList(list);
+
+		String report = ParseDiagnostics.report(t.id, list);
+
+		if (report == null) {
+			return;
+		}
+
+		if (failed) {
+			Console.error(report);
+		} else {
+			Console.log(report);
+		}
+
+	}
+
+	/**
+	 * Reads every file at the same time. The largest file is read on the
+	 * current thread.
+	 * 
+	 * @return The streams in the same order as the files.
+	 * @throws Exception
+	 */
+	private List<ModuleStream> readFiles() throws Exception {
+
+		int largest = 0;
+
+		for (int i = 1; i < files.length; ++i) {
+			if (files[i].length() > files[largest].length()) {
+				largest = i;
+			}
+		}
+
+		List<Future<ModuleStream>> futures = new ArrayList<Future<ModuleStream>>(files.length);
+
+		for (int i = 0; i < files.length; ++i) {
+
+			if (i == largest) {
+				futures.add(null);
+				continue;
+			}
+
+			final File f = files[i];
+
+			futures.add(filePool.submit(new Callable<ModuleStream>() {
+
+				@Override
+				public ModuleStream call() throws Exception {
+					return readFile(f);
+				}
+
+			}));
+
+		}
+
+		List<ModuleStream> streams = new ArrayList<ModuleStream>(files.length);
+
+		try {
+
+			ModuleStream mine = files.length > 0 ? readFile(files[largest]) : null;
+
+			for (int i = 0; i < files.length; ++i) {
+				streams.add(i == largest ? mine : futures.get(i).get());
+			}
+
+		} catch (ExecutionException e) {
+
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+
+			throw e;
+
+		} finally {
+
+			for (Future<ModuleStream> f : futures) {
+				if (f != null) {
+					f.cancel(true); // Only does anything on failure.
+				}
+			}
+
+		}
+
+		return streams;
+
+	}
+
+	/**
+	 * Merges the sorted streams into the trial in time order. Events with the
+	 * same time are matched in the order of the streams.
+	 * 
+	 * @param streams
+	 */
+	private void merge(List<ModuleStream> streams) {
+
+		long start = Metrics.start();
+
+		EventSlot slot = new EventSlot();
+
+		while (true) {
+
+			int time = -1;
+
+			for (ModuleStream s : streams) {
+				if (s.hasNext() && (time < 0 || s.head() < time)) {
+					time = s.head();
+				}
+			}
+
+			if (time < 0) {
+				break; // All streams are empty.
+			}
+
+			slot.reset(time);
+
+			for (ModuleStream s : streams) {
+				while (s.hasNext() && s.head() == time) {
+					s.module.attach(slot, s, s.pos++);
+				}
+			}
+
+			slot.drainTo(events);
+
+		}
+
+		Metrics.record(Metrics.Phase.Merging, start, events.size(), 0);
+
+	}
+
+	/**
+	 * Works out the reaction times and interaction counts of the
+	 * communications responses from the event each one answers.
+	 * 
+	 * Every response is timed from the last processed communications event
+	 * before it. Responses without a COMM line get a generated one. The number
+	 * of responses since the last processed event is stored on the last
+	 * communications container before the next processed event, the same as
+	 * it always has been.
+	 * 
+	 * @param events
+	 *            - Every event of the trial in time order.
+	 */
+	static void fixCOMMs(List<EventContainer> events) {
+
+		long begin = Metrics.start();
+
+		// Only the communications events are walked.
+		List<EventContainer> comms = new ArrayList<EventContainer>();
+
+		for (EventContainer e : events) {
+			if (e.matb != null
+					&& e.matb.module == MATBEvent.Module.Communications) {
+				comms.add(e);
+			}
+		}
+
+		EventContainer start = null; // Last processed event.
+		EventContainer last = null;
+		int counter = 0;
+
+		for (EventContainer current : comms) {
+
+			if (current.matb.eventType == MATBEvent.EventType.EventProcessed) {
+
+				// Total count needs to be tracked here.
+				if (last != null && last.comm != null) {
+					last.comm.interactions = Integer.toString(counter);
+				}
+
+				counter = 0; // Reset counter.
+				start = current;
+				continue;
+
+			}
+
+			if (start == null) {
+				continue; // Nothing to answer yet.
+			}
+
+			if (current.matb.eventType == MATBEvent.EventType.SubjectResponse) {
+
+				counter++; // Should only be counting responses, not events.
+
+				if (current.comm == null) {
+					current.comm = new COMMEvent();
+					current.comm.remarks = "Generated COMM event";
+				}
+
+				current.comm.rt = reactionTime(current.time - start.time);
+
+			}
+
+			last = current;
+
+		}
+
+		Metrics.record(Metrics.Phase.FixingCOMM, begin, comms.size(), 0);
+
+	}
+
+	/**
+	 * Seconds between an event and its response. Hours are dropped the same
+	 * as the {@link org.joda.time.Period} this used to be read from.
+	 * 
+	 * @param millis
+	 * @return
+	 */
+	private static float reactionTime(int millis) {
+		return ReaderInterface.minutesOf(millis) * 60
+				+ ReaderInterface.secondsOf(millis)
+				+ ((float) ReaderInterface.millisOf(millis)) / 1000;
+	}
+
+	@Override
+	public String call() throws Exception {
+
+		if (TrialCache.isEnabled()) {
+
+			updateProgress("Reading cache", 5);
+
+			List<ParseDiagnostics> cached = TrialCache.load(t);
+
+			if (cached != null) {
+
+				report(cached);
+
+				// The limit may be lower than when the cache was made.
+				for (ParseDiagnostics d : cached) {
+					if (d.isOverLimit()) {
+						t.release();
+						throw tooManyBadLines(d, 0);
+					}
+				}
+
+				updateProgress("Processed", 100);
+				return "Successfully read in Trial " + t.id;
+
+			}
+
+		}
+
+		updateProgress("Reading files", 10);
+
+		List<ModuleStream> streams = readFiles();
+
+		if (isCancelled()) {
+			return "Cancelled Trial " + t.id;
+		}
+
+		String id = null;
+
+		for (ModuleStream s : streams) {
+
+			if (s.id != null) {
+				id = s.id;
+				t.id = id;
+				break;
+			}
+
+		}
+
+		List<ParseDiagnostics> list = new ArrayList<ParseDiagnostics>(streams.size());
+
+		for (ModuleStream s : streams) {
+			list.add(s.diagnostics);
+		}
+
+		report(list);
+
+		updateProgress("Merging events", 40);
+
+		merge(streams);
+
+		updateProgress("Fixing COMM Events", 50);
+		// Console.log("Correcting reaction times for COMM events");
+
+		fixCOMMs(events);
+
+		// Console.log("Corrected COMM event reaction times.");
+
+		if (TrialCache.isEnabled()) {
+			updateProgress("Saving cache", 90);
+			TrialCache.save(t, id, diagnostics);
+		}
+
+		updateProgress("Processed", 100);
+
+		return "Successfully read in Trial " + t.id;
+	}
+
+}
@@ -0,0 +1,306 @@
+package com.myuplay.matb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+/**
+ * Searches directories for MATBII files and groups them into trials.
+ * 
+ * A directory that contains MATBII files is a trial directory and is not
+ * searched any deeper. Every other directory is searched recursively and only
+ * kept if something was found inside.
+ * 
+ * Every directory is listed once and its sub directories are searched at the
+ * same time, which matters most on network drives. The results come out in
+ * the same order as a plain depth first search.
+ */
+public class TrialScanner {
+
+	/**
+	 * Told about every trial as soon as it is found.
+	 */
+	public static interface Listener {
+
+		/**
+		 * Called from the scanning threads, in no particular order.
+		 * 
+		 * @param folder
+		 *            - Where the trial is.
+		 * @param t
+		 */
+		public void found(Folder folder, Trial t);
+
+	}
+
+	/**
+	 * A directory in the scan results. Contains either trials or folders.
+	 */
+	public static class Folder {
+
+		public final String name;
+
+		/**
+		 * The folder this one is in, null for the scanned directory.
+		 */
+		public final Folder parent;
+
+		public final List<Folder> folders = new ArrayList<Folder>();
+		public final List<Trial> trials = new ArrayList<Trial>();
+
+		public Folder(String name) {
+			this(name, null);
+		}
+
+		public Folder(String name, Folder parent) {
+			this.name = name;
+			this.parent = parent;
+		}
+
+		public boolean isEmpty() {
+			return folders.isEmpty() && trials.isEmpty();
+		}
+
+		/**
+		 * Collects every trial in and under this folder in display order.
+		 * 
+		 * @param list
+		 * @return list
+		 */
+		public List<Trial> getTrials(List<Trial> list) {
+
+			list.addAll(trials);
+
+			for (Folder f : folders) {
+				f.getTrials(list);
+			}
+
+			return list;
+
+		}
+
+	}
+
+	/**
+	 * Statically compiled file matcher for file filtering.
+	 */
+	private static final Pattern p = Pattern
+			.compile("(COMM|MATB|RMAN|SYSM|TRCK|WRS)_[0-9]{4}_[0-9]{8}\\.(txt)");
+
+	/**
+	 * Directories are mostly waiting on the disk so there are more threads
+	 * than cores.
+	 */
+	private static final ForkJoinPool pool = new ForkJoinPool(Math.max(8,
+			Runtime.getRuntime().availableProcessors() * 2));
+
+	/**
+	 * Scans the directory and everything under it.
+	 * 
+	 * @param directory
+	 * @return The root folder. It is empty if nothing was found.
+	 */
+	public static Folder scan(File directory) {
+		return scan(directory, null);
+	}
+
+	/**
+	 * Scans the directory and everything under it.
+	 * 
+	 * @param directory
+	 * @param listener
+	 *            - Told about each trial while the scan goes on. May be null.
+	 * @return The root folder. It is empty if nothing was found.
+	 */
+	public static Folder scan(File directory, Listener listener) {
+
+		long start = Metrics.start();
+
+		Folder root = pool.invoke(new Scan(directory, new Folder(
+				directory.getName()), listener));
+
+		Metrics.record(Metrics.Phase.Scanning, start, count(root), 0);
+
+		return root;
+
+	}
+
+	/**
+	 * @return Number of trials in the folder and everything under it.
+	 */
+	private static int count(Folder folder) {
+
+		int n = folder.trials.size();
+
+		for (Folder f : folder.folders) {
+			n += count(f);
+		}
+
+		return n;
+
+	}
+
+	/**
+	 * Fills in the folder of one directory. Sub directories are scanned as
+	 * tasks of their own.
+	 */
+	private static class Scan extends RecursiveTask<Folder> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final File folder;
+		private final Folder node;
+		private final Listener listener;
+
+		private Scan(File folder, Folder node, Listener listener) {
+			this.folder = folder;
+			this.node = node;
+			this.listener = listener;
+		}
+
+		@Override
+		protected Folder compute() {
+
+			List<File> matches = new ArrayList<File>();
+			List<File> others = new ArrayList<File>();
+
+			DirectoryStream<Path> dir = null;
+
+			try {
+
+				dir = Files.newDirectoryStream(folder.toPath());
+
+				for (Path path : dir) {
+
+					File f = path.toFile();
+
+					if (p.matcher(f.getName()).matches() && f.isFile()) {
+						matches.add(f);
+					} else {
+						others.add(f);
+					}
+
+				}
+
+			} catch (IOException e) {
+				Console.error("Could not read directory " + folder);
+				return node;
+			} catch (DirectoryIteratorException e) {
+				Console.error("Could not read directory " + folder);
+				return node;
+			} finally {
+				close(dir);
+			}
+
+			if (!matches.isEmpty()) {
+
+				// This is a trial directory.
+				addTrials(matches.toArray(new File[matches.size()]));
+
+			} else {
+				// Keep looking
+
+				List<Scan> scans = new ArrayList<Scan>();
+
+				for (File f : others) {
+					if (f.isDirectory()) {
+						scans.add(new Scan(f, new Folder(f.getName(), node),
+								listener));
+					}
+				}
+
+				invokeAll(scans);
+
+				for (Scan s : scans) {
+					Folder n = s.join();
+					if (!n.isEmpty()) {
+						node.folders.add(n);
+					}
+				}
+
+			}
+
+			return node;
+
+		}
+
+		private void addTrials(File[] list) {
+
+			Arrays.sort(list);
+
+			// Files of each stamp in the order the stamps are first seen.
+			Map<String, List<File>> stamps = new LinkedHashMap<String, List<File>>();
+
+			for (File f : list) {
+
+				String stamp = f.getName();
+				stamp = stamp.substring(stamp.indexOf('_') + 1,
+						stamp.indexOf('.'));
+
+				List<File> files = stamps.get(stamp);
+
+				if (files == null) {
+					files = new ArrayList<File>(6);
+					stamps.put(stamp, files);
+				}
+
+				files.add(f);
+
+			}
+
+			int id = 0;
+
+			for (Map.Entry<String, List<File>> e : stamps.entrySet()) {
+
+				id++;
+
+				try {
+
+					Trial t = new Trial(id, e.getKey(), e.getValue().toArray(
+							new File[e.getValue().size()]));
+
+					node.trials.add(t);
+
+					if (listener != null) {
+						listener.found(node, t);
+					}
+
+				} catch (ParseException ex) {
+					Console.error("Could not read in trial with timestamp "
+							+ e.getKey());
+				}
+
+			}
+
+		}
+
+	}
+
+	private static void close(Closeable c) {
+
+		if (c == null) {
+			return;
+		}
+
+		try {
+			c.close();
+		} catch (IOException e) {
+			// Nothing was written.
+		}
+
+	}
+
+}
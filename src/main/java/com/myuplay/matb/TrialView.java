@@ -0,0 +1,105 @@
+package com.myuplay.matb;
+
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.event.EventHandler;
+
+/**
+ * Connects a {@link Trial} to the file tree.
+ * 
+ * Holds the parsing task and the title of the trial but no scene graph
+ * objects. A {@link TrialCell} binds to it while the trial is on screen.
+ */
+public class TrialView {
+
+	public final Trial trial;
+
+	private final ReadOnlyStringWrapper title = new ReadOnlyStringWrapper();
+
+	private Task<String> task;
+
+	public TrialView(Trial trial) {
+
+		this.trial = trial;
+
+		updateTitle();
+
+	}
+
+	private void updateTitle() {
+		title.set("Trial " + trial.id + " "
+				+ Trial.tdfout.print(trial.timestamp));
+	}
+
+	/**
+	 * Shows how parsing ended after the title.
+	 * 
+	 * @param status
+	 */
+	private void updateTitle(String status) {
+		updateTitle();
+		title.set(title.get() + " (" + status + ")");
+	}
+
+	public ReadOnlyStringProperty titleProperty() {
+		return title.getReadOnlyProperty();
+	}
+
+	/**
+	 * The parsing task of the trial, null until {@link #setupTask()} is
+	 * called.
+	 * 
+	 * @return
+	 */
+	public Task<String> getTask() {
+		return task;
+	}
+
+	public Task<String> setupTask() {
+
+		TrialReader r = new TrialReader(trial);
+		r.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+
+			@Override
+			public void handle(WorkerStateEvent t) {
+
+				updateTitle(); // The id may have been read from the files.
+
+				Console.log("[Parser] " + t.getSource().getValue());
+
+			}
+
+		});
+
+		r.setOnFailed(new EventHandler<WorkerStateEvent>() {
+
+			@Override
+			public void handle(WorkerStateEvent t) {
+
+				updateTitle("Failed");
+
+				Console.error("[Parser] Failed to parse Trial " + trial.id
+						+ ": " + t.getSource().getException());
+
+			}
+
+		});
+
+		r.setOnCancelled(new EventHandler<WorkerStateEvent>() {
+
+			@Override
+			public void handle(WorkerStateEvent t) {
+				updateTitle("Cancelled");
+			}
+
+		});
+
+		task = r;
+
+		return r;
+
+	}
+
+}
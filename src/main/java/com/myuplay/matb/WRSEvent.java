@@ -1,8 +1,10 @@
 package com.myuplay.matb;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
-import org.joda.time.LocalTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
@@ -14,7 +16,10 @@ public class WRSEvent extends ReaderInterface {
 	public static final DateTimeFormatter stf = DateTimeFormat
 			.forPattern("mm:ss.S");
 
-	public LocalTime time2;
+	/**
+	 * Session time in milliseconds.
+	 */
+	public int time2;
 	public int menl;
 	public int phys;
 	public int temp;
@@ -25,29 +30,34 @@ public class WRSEvent extends ReaderInterface {
 	public String remarks = "";
 
 	@Override
-	public LocalTime parse(String line) throws ParseException {
+	public int parse(String line) throws ParseException {
 
 		if (line.isEmpty() || line.charAt(0) == '#')
 			throw new ParseException("Invalid line: '" + line + "'", 0);
 
-		String[] parts = line.trim().split("\\s+");
+		Tokenizer parts = splitWhitespace(line);
 
-		time = readDate(parts[0]);
+		time = readMillis(parts, 0);
 
-		if (parts.length >= 9) {
+		if (parts.count() >= 9) {
 
-			time2 = stf.parseLocalTime(parts[1]);
-			menl = Integer.parseInt(parts[2]);
-			phys = Integer.parseInt(parts[3]);
-			temp = Integer.parseInt(parts[4]);
-			perf = Integer.parseInt(parts[5]);
-			efft = Integer.parseInt(parts[6]);
-			frus = Integer.parseInt(parts[7]);
-			mean = Float.parseFloat(parts[8]);
+			time2 = readClock(parts.line(), parts.start(1), parts.end(1),
+					false, true);
 
-			if (parts.length >= 10) {
+			if (time2 < 0) {
+				time2 = stf.parseLocalTime(parts.get(1)).getMillisOfDay();
+			}
+			menl = parts.getInt(2);
+			phys = parts.getInt(3);
+			temp = parts.getInt(4);
+			perf = parts.getInt(5);
+			efft = parts.getInt(6);
+			frus = parts.getInt(7);
+			mean = parts.getFloat(8);
+
+			if (parts.count() >= 10) {
 
-				remarks = parts[9].replaceAll(ccleaner, "");
+				remarks = parts.getClean(9);
 
 			}
 
@@ -57,13 +67,43 @@ public class WRSEvent extends ReaderInterface {
 	}
 
 	@Override
-	public String toString() {
+	public StringBuilder appendTo(StringBuilder sb) {
+
+		appendClock(sb, time, false, true);
+		sb.append(',').append(menl).append(',').append(phys).append(',')
+				.append(perf).append(',').append(efft).append(',').append(frus)
+				.append(",\"").append(mean).append("\",\"").append(remarks)
+				.append('"');
+
+		return sb;
+	}
 
-		String ret = stf.print(time) + ',' + menl + ',' + phys + ',' + perf
-				+ ',' + efft + ',' + frus + ",\"" + mean + "\",\"" + remarks
-				+ "\"";
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(time);
+		out.writeInt(time2);
+		out.writeInt(menl);
+		out.writeInt(phys);
+		out.writeInt(temp);
+		out.writeInt(perf);
+		out.writeInt(efft);
+		out.writeInt(frus);
+		out.writeFloat(mean);
+		TrialCache.writeString(out, remarks);
+	}
 
-		return ret;
+	@Override
+	void read(ByteBuffer in) {
+		time = in.getInt();
+		time2 = in.getInt();
+		menl = in.getInt();
+		phys = in.getInt();
+		temp = in.getInt();
+		perf = in.getInt();
+		efft = in.getInt();
+		frus = in.getInt();
+		mean = in.getFloat();
+		remarks = TrialCache.readString(in);
 	}
 
 }
@@ -0,0 +1,355 @@
+package com.myuplay.matb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link TrialParser#fixCOMMs(List)} against the nested iterator it
+ * replaced.
+ */
+public class FixCOMMsTest {
+
+	/**
+	 * The nested iterator fixCOMMs was just before it became a single pass
+	 * (commit 6ae4e99), without the comments and with the two identical
+	 * reaction time sums of its response branch written once. By then times
+	 * were ints and events were matched by {@link MATBEvent.Module}; the first
+	 * version (0ecab9d) timed responses with a Period and matched event name
+	 * strings, so this is not that code. It throws a NullPointerException on
+	 * a MATB event without an event type.
+	 */
+	private static void oldFixCOMMs(List<EventContainer> events) {
+
+		ListIterator<EventContainer> list = events.listIterator();
+		int counter = 0;
+
+		while (list.hasNext()) {
+
+			EventContainer start = list.next();
+
+			if (start.matb != null
+					&& start.matb.eventType
+							.equals(MATBEvent.EventType.EventProcessed)
+					&& start.matb.module == MATBEvent.Module.Communications) {
+
+				EventContainer last = null;
+
+				while (list.hasNext()) {
+
+					EventContainer current = list.next();
+
+					if (current.matb != null
+							&& current.matb.module == MATBEvent.Module.Communications) {
+
+						if (current.matb.eventType
+								.equals(MATBEvent.EventType.EventProcessed)) {
+
+							if (last != null && last.comm != null) {
+								last.comm.interactions = Integer
+										.toString(counter);
+							}
+							counter = 0;
+							start = current;
+							continue;
+
+						} else if (current.matb.eventType
+								.equals(MATBEvent.EventType.SubjectResponse)) {
+
+							counter++;
+
+							if (current.comm == null) {
+								current.comm = new COMMEvent();
+								current.comm.remarks = "Generated COMM event";
+							}
+
+							int p = current.time - start.time;
+							current.comm.rt = ReaderInterface.minutesOf(p)
+									* 60 + ReaderInterface.secondsOf(p)
+									+ ((float) ReaderInterface.millisOf(p))
+									/ 1000;
+
+						}
+
+						last = current;
+
+					}
+
+				}
+
+			}
+
+		}
+
+	}
+
+	private static EventContainer matb(int time, MATBEvent.Module module,
+			MATBEvent.EventType type) {
+
+		EventContainer e = new EventContainer(time);
+
+		e.matb = new MATBEvent();
+		e.matb.module = module;
+		e.matb.eventType = type;
+
+		return e;
+
+	}
+
+	private static EventContainer processed(int time) {
+		return matb(time, MATBEvent.Module.Communications,
+				MATBEvent.EventType.EventProcessed);
+	}
+
+	private static EventContainer response(int time) {
+		return matb(time, MATBEvent.Module.Communications,
+				MATBEvent.EventType.SubjectResponse);
+	}
+
+	private static EventContainer withCOMM(EventContainer e) {
+
+		e.comm = new COMMEvent();
+		e.comm.rt = 99;
+		e.comm.remarks = "Logged";
+
+		return e;
+
+	}
+
+	/**
+	 * Random events, mostly communications, with some COMM lines and times
+	 * that sometimes jump more than an hour.
+	 */
+	private static List<EventContainer> random(long seed) {
+
+		Random r = new Random(seed);
+		List<EventContainer> events = new ArrayList<EventContainer>();
+
+		MATBEvent.Module[] modules = MATBEvent.Module.values();
+		MATBEvent.EventType[] types = MATBEvent.EventType.values();
+
+		int time = r.nextInt(5000000);
+		int n = r.nextInt(200);
+
+		for (int i = 0; i < n; ++i) {
+
+			time += r.nextInt(4) == 0 ? r.nextInt(4000000) : r.nextInt(3000);
+
+			EventContainer e = new EventContainer(time);
+
+			if (r.nextInt(8) != 0) {
+
+				e.matb = new MATBEvent();
+				e.matb.module = r.nextInt(3) == 0 ? modules[r
+						.nextInt(modules.length)]
+						: MATBEvent.Module.Communications;
+
+				if (r.nextBoolean()) {
+					e.matb.eventType = r.nextBoolean() ? MATBEvent.EventType.EventProcessed
+							: MATBEvent.EventType.SubjectResponse;
+				} else {
+					e.matb.eventType = types[r.nextInt(types.length)];
+				}
+
+			}
+
+			if (r.nextInt(3) == 0) {
+				e.comm = new COMMEvent();
+				e.comm.rt = r.nextFloat();
+				e.comm.remarks = "Logged " + i;
+				e.comm.interactions = "Old " + i;
+			}
+
+			events.add(e);
+
+		}
+
+		return events;
+
+	}
+
+	private static void assertSame(String message,
+			List<EventContainer> expected, List<EventContainer> actual) {
+
+		assertEquals(message, expected.size(), actual.size());
+
+		for (int i = 0; i < expected.size(); ++i) {
+
+			COMMEvent e = expected.get(i).comm;
+			COMMEvent a = actual.get(i).comm;
+
+			if (e == null) {
+				assertNull(message + ", event " + i + " has no COMM", a);
+				continue;
+			}
+
+			assertNotNull(message + ", event " + i + " has a COMM", a);
+			assertEquals(message + ", rt of event " + i,
+					Float.floatToIntBits(e.rt), Float.floatToIntBits(a.rt));
+			assertEquals(message + ", interactions of event " + i,
+					e.interactions, a.interactions);
+			assertEquals(message + ", remarks of event " + i, e.remarks,
+					a.remarks);
+
+		}
+
+	}
+
+	@Test
+	public void matchesNestedIterator() {
+
+		for (long seed = 0; seed < 20000; ++seed) {
+
+			List<EventContainer> expected = random(seed);
+			List<EventContainer> actual = random(seed);
+
+			oldFixCOMMs(expected);
+			TrialParser.fixCOMMs(actual);
+
+			assertSame("Seed " + seed, expected, actual);
+
+		}
+
+	}
+
+	@Test
+	public void timesResponsesFromLastProcessed() {
+
+		List<EventContainer> events = new ArrayList<EventContainer>();
+
+		events.add(processed(1000));
+		events.add(matb(1200, MATBEvent.Module.Tracking,
+				MATBEvent.EventType.SubjectResponse));
+		events.add(withCOMM(response(3500)));
+		events.add(response(4250));
+		events.add(processed(10000));
+
+		TrialParser.fixCOMMs(events);
+
+		assertNull(events.get(1).comm);
+		assertEquals(2.5f, events.get(2).comm.rt, 0);
+		assertEquals("Logged", events.get(2).comm.remarks);
+		assertEquals(3.25f, events.get(3).comm.rt, 0);
+		assertEquals("Generated COMM event", events.get(3).comm.remarks);
+		assertEquals("2", events.get(3).comm.interactions);
+		assertEquals("", events.get(2).comm.interactions);
+
+	}
+
+	@Test
+	public void dropsHoursLikeThePeriod() {
+
+		List<EventContainer> events = new ArrayList<EventContainer>();
+
+		events.add(processed(0));
+		events.add(response(3600000 + 61500));
+
+		TrialParser.fixCOMMs(events);
+
+		assertEquals(61.5f, events.get(1).comm.rt, 0);
+
+	}
+
+	private static List<EventContainer> unmatched() {
+
+		List<EventContainer> events = new ArrayList<EventContainer>();
+
+		events.add(withCOMM(response(500)));
+		events.add(response(700));
+		events.add(processed(1000));
+		events.add(response(2000));
+
+		return events;
+
+	}
+
+	@Test
+	public void unmatchedResponse() {
+
+		List<EventContainer> expected = unmatched();
+		List<EventContainer> actual = unmatched();
+
+		oldFixCOMMs(expected);
+		TrialParser.fixCOMMs(actual);
+
+		assertSame("Unmatched", expected, actual);
+
+		// Responses before any processed event are left alone.
+		assertEquals(99f, actual.get(0).comm.rt, 0);
+		assertNull(actual.get(1).comm);
+		assertEquals(1f, actual.get(3).comm.rt, 0);
+		assertEquals("", actual.get(3).comm.interactions);
+
+	}
+
+	private static List<EventContainer> backToBack() {
+
+		List<EventContainer> events = new ArrayList<EventContainer>();
+
+		events.add(processed(1000));
+		events.add(response(1500));
+		events.add(processed(2000));
+		events.add(processed(2500));
+		events.add(response(4000));
+		events.add(response(4100));
+		events.add(processed(5000));
+		events.add(processed(6000));
+
+		return events;
+
+	}
+
+	@Test
+	public void backToBackProcessed() {
+
+		List<EventContainer> expected = backToBack();
+		List<EventContainer> actual = backToBack();
+
+		oldFixCOMMs(expected);
+		TrialParser.fixCOMMs(actual);
+
+		assertSame("Back to back", expected, actual);
+
+		// The last response keeps being given the count of the processed
+		// events after it, so a second processed event in a row resets it.
+		assertEquals("0", actual.get(1).comm.interactions);
+		assertEquals(1.5f, actual.get(4).comm.rt, 1e-6);
+		assertEquals(1.6f, actual.get(5).comm.rt, 1e-6);
+		assertEquals("0", actual.get(5).comm.interactions);
+
+	}
+
+	@Test
+	public void missingEventType() {
+
+		List<EventContainer> events = new ArrayList<EventContainer>();
+
+		events.add(matb(0, MATBEvent.Module.Other, null));
+		events.add(processed(1000));
+		events.add(matb(1200, MATBEvent.Module.Communications, null));
+		events.add(response(2000));
+		events.add(processed(3000));
+
+		try {
+			oldFixCOMMs(new ArrayList<EventContainer>(events));
+			assertTrue("The nested iterator threw on a missing type", false);
+		} catch (NullPointerException e) {
+			// Expected, the new one does not.
+		}
+
+		TrialParser.fixCOMMs(events);
+
+		assertEquals(1f, events.get(3).comm.rt, 0);
+		assertEquals("1", events.get(3).comm.interactions);
+
+	}
+
+}
@@ -0,0 +1,202 @@
+package com.myuplay.matb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the data and stats of whole trials against golden files.
+ *
+ * The logs in {@code golden/logs} are three sessions made by the benchmarks'
+ * LogGenerator (seeds 11, 12 and 13 at 2, 5 and 10 tracking samples a
+ * second). The expected files were printed by the original nested iterator
+ * stats engine from the same logs, with the folder replaced by {@value #dir}.
+ * Block durations are printed in local time, so the tests need mountain time
+ * (see the surefire settings in the pom).
+ */
+public class TrialGoldenTest {
+
+	private static final String dir = "@DIR@";
+
+	private static List<Trial> trials;
+	private static String folder;
+
+	@BeforeClass
+	public static void read() throws Exception {
+
+		File logs = new File(TrialGoldenTest.class.getResource("golden/logs")
+				.toURI());
+
+		folder = "\"" + logs.getAbsolutePath() + "\"";
+
+		TrialCache.setEnabled(false);
+
+		trials = TrialScanner.scan(logs).getTrials(new ArrayList<Trial>());
+
+		Collections.sort(trials, new Comparator<Trial>() {
+
+			@Override
+			public int compare(Trial a, Trial b) {
+				return a.timestamp.compareTo(b.timestamp);
+			}
+
+		});
+
+		for (Trial t : trials) {
+			new TrialParser(t).call();
+		}
+
+	}
+
+	private static List<String> expected(String name) throws IOException {
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				TrialGoldenTest.class.getResourceAsStream("golden/" + name),
+				"UTF-8"));
+
+		try {
+			return lines(in);
+		} finally {
+			in.close();
+		}
+
+	}
+
+	private static List<String> lines(BufferedReader in) throws IOException {
+
+		List<String> lines = new ArrayList<String>();
+		String line;
+
+		while ((line = in.readLine()) != null) {
+			lines.add(line);
+		}
+
+		return lines;
+
+	}
+
+	/**
+	 * Lines of the output with the folder replaced. Every line has to end in
+	 * \r\n.
+	 */
+	private static List<String> actual(StringWriter out) throws IOException {
+
+		String s = out.toString().replace(folder, "\"" + dir + "\"");
+
+		assertTrue("Output ends in \\r\\n", s.endsWith("\r\n"));
+		assertEquals("Every line ends in \\r\\n", s.split("\r\n", -1).length,
+				s.split("\n", -1).length);
+
+		return lines(new BufferedReader(new StringReader(s)));
+
+	}
+
+	@Test
+	public void readsEveryTrial() {
+		assertEquals(3, trials.size());
+	}
+
+	@Test
+	public void data() throws Exception {
+
+		StringWriter w = new StringWriter();
+		BufferedWriter out = new BufferedWriter(w);
+
+		out.append(Trial.getHeader() + "\r\n");
+
+		for (Trial t : trials) {
+			t.toString(out);
+		}
+
+		out.close();
+
+		List<String> expected = expected("expected_data.csv");
+		List<String> actual = actual(w);
+
+		for (int i = 0; i < Math.min(expected.size(), actual.size()); ++i) {
+			assertEquals("Data row " + i, expected.get(i), actual.get(i));
+		}
+
+		assertEquals("Data rows", expected.size(), actual.size());
+
+	}
+
+	@Test
+	public void stats() throws Exception {
+		checkStats(true);
+	}
+
+	@Test
+	public void statsWithLazyIdle() throws Exception {
+		checkStats(false);
+	}
+
+	/**
+	 * Columns of a stats row. Only the folder can hold a comma and it has
+	 * been replaced. Rows end in a comma so they have one more column than
+	 * the header.
+	 */
+	private static final int time = 3;
+	private static final int event = 4;
+	private static final int duration = 5;
+	private static final int block = 6;
+	private static final int firstChange = 7;
+	private static final int changes = 12;
+
+	private static void checkStats(boolean precomputeIdle) throws Exception {
+
+		StringWriter w = new StringWriter();
+		BufferedWriter out = new BufferedWriter(w);
+
+		out.append(Trial.getStatsHeader() + "\r\n");
+
+		for (Trial t : trials) {
+			t.getStats(out, precomputeIdle);
+		}
+
+		out.close();
+
+		List<String> expected = expected("expected_stats.csv");
+		List<String> actual = actual(w);
+
+		assertEquals("Stats rows", expected.size(), actual.size());
+
+		for (int i = 1; i < expected.size(); ++i) {
+
+			String[] e = expected.get(i).split(",", -1);
+			String[] a = actual.get(i).split(",", -1);
+
+			assertEquals("Columns of row " + i, e.length, a.length);
+
+			assertEquals("Time of row " + i, e[time], a[time]);
+			assertEquals("Event of row " + i, e[event], a[event]);
+			assertEquals("Block duration of row " + i, e[duration],
+					a[duration]);
+			assertEquals("Block ID of row " + i, e[block], a[block]);
+
+			for (int c = firstChange; c < firstChange + changes; ++c) {
+				assertEquals("Transition " + expected.get(0).split(",")[c]
+						+ " of row " + i, e[c], a[c]);
+			}
+
+			assertEquals("Row " + i, expected.get(i), actual.get(i));
+
+		}
+
+	}
+
+}